@@ -54,6 +54,15 @@ public class Apdex {
         }
     }
 
+    /**
+     * @since 7.0
+     */
+    public void merge(Apdex other) {
+        satisfied += other.satisfied;
+        tolerating += other.tolerating;
+        frustrated += other.frustrated;
+    }
+
     public float getScore() {
         long total = satisfied + tolerating + frustrated;
         if (total == 0) {
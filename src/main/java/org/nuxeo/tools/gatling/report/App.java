@@ -18,16 +18,20 @@ package org.nuxeo.tools.gatling.report;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.log4j.Logger;
 
 import com.beust.jcommander.JCommander;
+import com.beust.jcommander.ParameterException;
 
 public class App implements Runnable {
     protected static final String PROGRAM_NAME = "java -jar gatling-report.jar";
 
+    protected static final String TIME_SERIES_FILENAME = "timeseries.csv";
+
     private final static Logger log = Logger.getLogger(App.class);
 
     protected final Options options;
@@ -36,8 +40,19 @@ public class App implements Runnable {
 
     public App(String[] args) {
         options = new Options();
-        JCommander command = new JCommander(options, args);
+        JCommander command = new JCommander(options);
         command.setProgramName(PROGRAM_NAME);
+        try {
+            command.parse(args);
+            if (options.timeSeries && options.outputDirectory == null && !options.help) {
+                // the stdout is kept for the stats per request
+                throw new ParameterException("--time-series requires an output directory, use -o");
+            }
+        } catch (ParameterException e) {
+            System.err.println(e.getMessage());
+            command.usage();
+            System.exit(-1);
+        }
         if (options.help) {
             command.usage();
             System.exit(0);
@@ -62,9 +77,9 @@ public class App implements Runnable {
     protected void parseSimulationFile(File file) {
         final long startTime = System.currentTimeMillis();
         log.info("Parsing " + file.getAbsolutePath());
-        try {
-            SimulationParser parser = ParserFactory.getParser(file, options.apdexT);
-            stats.add(parser.parse());
+        StatsConfig config = getStatsConfig();
+        try (SimulationParser parser = ParserFactory.getParser(file, options.apdexT)) {
+            stats.add(parser.setThreads(options.threads).setStatsConfig(config).parse());
             final long endTime = System.currentTimeMillis();
             log.info("Parsing finished in " + (endTime - startTime) + " ms. File " + file.getAbsolutePath());
         } catch (IOException e) {
@@ -72,6 +87,23 @@ public class App implements Runnable {
         }
     }
 
+    protected StatsConfig getStatsConfig() {
+        StatsConfig ret = new StatsConfig();
+        if (options.timeSeries) {
+            ret.timeBucket(options.timeBucket);
+        }
+        if (options.summaryOnly) {
+            ret.summaryOnly();
+        }
+        if (options.histogram || options.summaryOnly) {
+            ret.histogram(options.significantDigits);
+        }
+        if (options.percentiles != null) {
+            ret.percentiles(options.percentiles);
+        }
+        return ret;
+    }
+
     protected void render() {
         if (options.outputDirectory == null) {
             renderAsCsv();
@@ -103,10 +135,24 @@ public class App implements Runnable {
                                              .setFilename(options.outputName)
                                              .create();
         log.info("Report generated: " + reportPath);
+        if (options.timeSeries) {
+            File timeSeries = new File(dir, TIME_SERIES_FILENAME);
+            try (PrintStream out = new PrintStream(timeSeries, "UTF-8")) {
+                printTimeSeries(out);
+            }
+            log.info("Time series generated: " + timeSeries.getAbsolutePath());
+        }
     }
 
     protected void renderAsCsv() {
-        System.out.println(RequestStat.header());
+        System.out.println(RequestStat.header(getStatsConfig()));
         stats.forEach(System.out::println);
     }
+
+    protected void printTimeSeries(PrintStream out) {
+        out.println(TimeSeries.header(getStatsConfig()));
+        stats.stream()
+             .filter(SimulationContext::hasTimeSeries)
+             .forEach(stat -> out.println(stat.getTimeSeries()));
+    }
 }
@@ -20,22 +20,34 @@ import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 /**
  * Reader for binary format simulation log files (Gatling 3.14.3+)
  */
 public class BinarySimulationReader implements Closeable {
 
-    private final DataInputStream dis;
-    private final byte[] skipBuffer = new byte[1024];
-    private final Map<Integer, String> stringCache = new HashMap<>();
+    protected final DataInputStream dis;
+    protected final byte[] skipBuffer = new byte[1024];
+    // cached strings indexed by their cache index, Gatling assigns them densely
+    protected String[] stringCache = new String[64];
+    // bytes and coder of the cached strings skipped, decoded when they are referenced
+    protected byte[][] skippedValues = new byte[64][];
+    protected byte[] skippedCoders = new byte[64];
 
     public BinarySimulationReader(File file) throws IOException {
         this.dis = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
     }
 
+    /**
+     * Used by readers that are not backed by a stream.
+     *
+     * @since 7.0
+     */
+    protected BinarySimulationReader() {
+        this.dis = null;
+    }
+
     public byte readByte() throws IOException {
         return dis.readByte();
     }
@@ -67,19 +79,60 @@ public class BinarySimulationReader implements Closeable {
 
     public String readCachedString() throws IOException {
         int cachedIndex = readInt();
-        if (cachedIndex >= 0) {
-            // New string - cache it
-            String string = readString();
-            stringCache.put(cachedIndex, string);
-            return string;
-        } else {
+        if (cachedIndex < 0) {
             // Reference to cached string
-            String cachedString = stringCache.get(-cachedIndex);
+            String cachedString = getCachedString(-cachedIndex);
             if (cachedString == null) {
                 throw new IOException("Cached string missing for index: " + (-cachedIndex));
             }
             return cachedString;
         }
+        // New string - cache it
+        String string = readString();
+        cacheString(cachedIndex, string);
+        return string;
+    }
+
+    /**
+     * Reads a cached string and returns its cache index, the string is only decoded when it is defined.
+     *
+     * @since 7.0
+     */
+    public int readCachedStringId() throws IOException {
+        int cachedIndex = readInt();
+        if (cachedIndex >= 0) {
+            cacheString(cachedIndex, readString());
+            return cachedIndex;
+        }
+        if (getCachedString(-cachedIndex) == null) {
+            throw new IOException("Cached string missing for index: " + (-cachedIndex));
+        }
+        return -cachedIndex;
+    }
+
+    /**
+     * Returns the string of a cache index returned by {@link #readCachedStringId()}, or null when it is not defined.
+     *
+     * @since 7.0
+     */
+    public String getCachedString(int cachedIndex) throws IOException {
+        if (cachedIndex < 0 || cachedIndex >= stringCache.length) {
+            return null;
+        }
+        String ret = stringCache[cachedIndex];
+        if (ret == null && cachedIndex < skippedValues.length && skippedValues[cachedIndex] != null) {
+            ret = StringInternals.newString(skippedValues[cachedIndex], skippedCoders[cachedIndex]);
+            skippedValues[cachedIndex] = null;
+            stringCache[cachedIndex] = ret;
+        }
+        return ret;
+    }
+
+    protected void cacheString(int cachedIndex, String string) {
+        if (cachedIndex >= stringCache.length) {
+            stringCache = Arrays.copyOf(stringCache, Math.max(cachedIndex + 1, stringCache.length * 2));
+        }
+        stringCache[cachedIndex] = string;
     }
 
     public void skip(int len) throws IOException {
@@ -113,11 +166,28 @@ public class BinarySimulationReader implements Closeable {
         }
     }
 
+    /**
+     * Skips a cached string, a definition is kept undecoded until it is referenced.
+     */
     public void skipCachedString() throws IOException {
         int cachedIndex = readInt();
-        if (cachedIndex >= 0) {
-            skipString();
+        if (cachedIndex < 0) {
+            return;
+        }
+        int length = readInt();
+        if (length == 0) {
+            cacheString(cachedIndex, "");
+            return;
+        }
+        byte[] value = new byte[length];
+        dis.readFully(value);
+        if (cachedIndex >= skippedValues.length) {
+            int size = Math.max(cachedIndex + 1, skippedValues.length * 2);
+            skippedValues = Arrays.copyOf(skippedValues, size);
+            skippedCoders = Arrays.copyOf(skippedCoders, size);
         }
+        skippedValues[cachedIndex] = value;
+        skippedCoders[cachedIndex] = readByte();
     }
 
     public boolean hasMore() throws IOException {
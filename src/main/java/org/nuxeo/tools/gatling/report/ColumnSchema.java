@@ -0,0 +1,123 @@
+/*
+ * (C) Copyright 2026 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package org.nuxeo.tools.gatling.report;
+
+/**
+ * Describes the columns of a text simulation format. The reader uses it to tokenize only the leading columns of a
+ * REQUEST record, trailing columns are skipped without being tokenized, the message is only tokenized for a KO.
+ *
+ * @since 7.0
+ */
+public class ColumnSchema {
+
+    protected int simulationName, simulationStart;
+
+    protected int type, scenario = -1, userType;
+
+    protected int userStart = -1, userEnd = -1;
+
+    protected int name, start, end, status;
+
+    protected int message = -1, error = -1;
+
+    protected int groupName = -1, groupStart, groupEnd, groupCumulated, groupStatus;
+
+    protected int requestColumns = Integer.MAX_VALUE;
+
+    public ColumnSchema run(int simulationName, int simulationStart) {
+        this.simulationName = simulationName;
+        this.simulationStart = simulationStart;
+        return this;
+    }
+
+    public ColumnSchema type(int type) {
+        this.type = type;
+        return this;
+    }
+
+    /**
+     * The column of the scenario, not set when the scenario is resolved from the user.
+     */
+    public ColumnSchema scenario(int scenario) {
+        this.scenario = scenario;
+        return this;
+    }
+
+    public ColumnSchema user(int userType) {
+        this.userType = userType;
+        return this;
+    }
+
+    /**
+     * The columns of a USER record with the timestamps of the user start and end, a format with a single timestamp
+     * has no end column on the USER END record.
+     */
+    public ColumnSchema user(int userType, int start, int end) {
+        this.userStart = start;
+        this.userEnd = end;
+        return user(userType);
+    }
+
+    public ColumnSchema request(int name, int start, int end, int status) {
+        this.name = name;
+        this.start = start;
+        this.end = end;
+        this.status = status;
+        requestColumns = max(type, scenario, name, start, end, status) + 1;
+        return this;
+    }
+
+    /**
+     * The column of the message of a KO request, only tokenized for a KO request.
+     */
+    public ColumnSchema message(int message) {
+        this.message = message;
+        return this;
+    }
+
+    /**
+     * The column of the message of an ERROR record.
+     */
+    public ColumnSchema error(int error) {
+        this.error = error;
+        return this;
+    }
+
+    /**
+     * The columns of a GROUP record, the group name is the comma separated group hierarchy.
+     */
+    public ColumnSchema group(int name, int start, int end, int cumulated, int status) {
+        this.groupName = name;
+        this.groupStart = start;
+        this.groupEnd = end;
+        this.groupCumulated = cumulated;
+        this.groupStatus = status;
+        return this;
+    }
+
+    /**
+     * Returns the number of leading columns needed by a REQUEST record.
+     */
+    public int getRequestColumns() {
+        return requestColumns;
+    }
+
+    protected static int max(int... values) {
+        int ret = values[0];
+        for (int value : values) {
+            ret = Math.max(ret, value);
+        }
+        return ret;
+    }
+}
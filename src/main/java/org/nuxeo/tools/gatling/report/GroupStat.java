@@ -0,0 +1,71 @@
+/*
+ * (C) Copyright 2026 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package org.nuxeo.tools.gatling.report;
+
+import java.util.Locale;
+
+/**
+ * Statistics of a group of requests. The durations are the wall-clock time of the group, from the start of its first
+ * request to the end of its last one, the cumulated time is the sum of the response times of its requests.
+ *
+ * @since 7.0
+ */
+public class GroupStat extends RequestStat {
+
+    protected long cumulated;
+
+    protected double avgCumulated;
+
+    public GroupStat(String simulation, String scenario, String group, long start, Float apdexT,
+            StatsConfig config) {
+        super(simulation, scenario, group, start, apdexT, config);
+    }
+
+    public void add(long start, long end, long cumulated, boolean success) {
+        add(start, end, success);
+        this.cumulated += cumulated;
+    }
+
+    @Override
+    public void merge(RequestStat other) {
+        super.merge(other);
+        if (other instanceof GroupStat) {
+            cumulated += ((GroupStat) other).cumulated;
+        }
+    }
+
+    @Override
+    public void computeStat(double duration, int maxUsers) {
+        super.computeStat(duration, maxUsers);
+        avgCumulated = count == 0 ? 0 : (double) cumulated / count;
+    }
+
+    public String getGroup() {
+        return request;
+    }
+
+    public String averageCumulated() {
+        return String.format(Locale.ENGLISH, "%.1f", avgCumulated);
+    }
+
+    /**
+     * Returns the percentage of the wall-clock time spent in requests, below 100 when the group includes pauses.
+     */
+    public String cumulatedPercent() {
+        if (avg == 0) {
+            return "0.0";
+        }
+        return String.format(Locale.ENGLISH, "%.1f", 100 * avgCumulated / avg);
+    }
+}
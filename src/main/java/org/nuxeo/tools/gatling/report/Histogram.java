@@ -0,0 +1,208 @@
+/*
+ * (C) Copyright 2026 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package org.nuxeo.tools.gatling.report;
+
+import java.util.Arrays;
+
+/**
+ * A log-linear histogram of positive values, laid out like HdrHistogram: values are split into buckets of doubling
+ * ranges, each bucket is divided into linear sub-buckets. A value is recorded in constant time and a percentile is
+ * returned with a relative error bounded by the number of significant digits. The counts array only grows with the
+ * highest recorded value, not with the number of values.
+ *
+ * @since 7.0
+ */
+public class Histogram {
+
+    public static final int MIN_DIGITS = 1;
+
+    public static final int MAX_DIGITS = 5;
+
+    protected final int significantDigits;
+
+    protected final int subBucketHalfCountMagnitude;
+
+    protected final int subBucketHalfCount;
+
+    protected final long subBucketMask;
+
+    protected long[] counts;
+
+    protected long totalCount;
+
+    protected long min = Long.MAX_VALUE, max, sum;
+
+    public Histogram(int significantDigits) {
+        if (significantDigits < MIN_DIGITS || significantDigits > MAX_DIGITS) {
+            throw new IllegalArgumentException(
+                    "Significant digits must be between " + MIN_DIGITS + " and " + MAX_DIGITS + ": "
+                            + significantDigits);
+        }
+        this.significantDigits = significantDigits;
+        // values below 2 * 10^digits have a single unit resolution
+        long largestSingleUnitValue = 2 * (long) Math.pow(10, significantDigits);
+        int subBucketCountMagnitude = 64 - Long.numberOfLeadingZeros(largestSingleUnitValue - 1);
+        subBucketHalfCountMagnitude = subBucketCountMagnitude - 1;
+        subBucketHalfCount = 1 << subBucketHalfCountMagnitude;
+        subBucketMask = (1L << subBucketCountMagnitude) - 1;
+        counts = new long[2 * subBucketHalfCount];
+    }
+
+    /**
+     * Records a value, a negative value is recorded as 0.
+     */
+    public void add(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        int index = countsIndex(value);
+        if (index >= counts.length) {
+            // grow to the end of the bucket of the value
+            counts = Arrays.copyOf(counts, (index | (subBucketHalfCount - 1)) + 1);
+        }
+        counts[index]++;
+        totalCount++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds the values of a histogram with the same number of significant digits.
+     */
+    public void merge(Histogram other) {
+        if (other.significantDigits != significantDigits) {
+            throw new IllegalArgumentException("Can not merge histograms of " + significantDigits + " and "
+                    + other.significantDigits + " significant digits");
+        }
+        if (other.totalCount == 0) {
+            return;
+        }
+        if (other.counts.length > counts.length) {
+            counts = Arrays.copyOf(counts, other.counts.length);
+        }
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public long getMin() {
+        return totalCount == 0 ? 0 : min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return totalCount == 0 ? Double.NaN : (double) sum / totalCount;
+    }
+
+    /**
+     * Returns the sample standard deviation, each value being taken at the middle of its sub-bucket.
+     */
+    public double getStdDeviation() {
+        if (totalCount < 2) {
+            return 0;
+        }
+        double mean = getMean();
+        double squares = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                double delta = medianEquivalentValue(i) - mean;
+                squares += counts[i] * delta * delta;
+            }
+        }
+        return Math.sqrt(squares / (totalCount - 1));
+    }
+
+    /**
+     * Returns the value below which {@code percentile} percent of the values fall, within the resolution of its
+     * sub-bucket and never above the highest recorded value.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        double p = Math.min(Math.max(percentile, 0), 100);
+        long countAtPercentile = Math.max(1, (long) (p / 100 * totalCount + 0.5));
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            total += counts[i];
+            if (total >= countAtPercentile) {
+                return Math.max(min, Math.min(max, highestEquivalentValue(i)));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Returns the values of sorted percentiles in a single sweep of the counts.
+     */
+    public long[] getValuesAtPercentiles(double[] percentiles) {
+        long[] ret = new long[percentiles.length];
+        if (totalCount == 0) {
+            return ret;
+        }
+        int index = 0;
+        long total = 0;
+        for (int i = 0; i < percentiles.length; i++) {
+            double p = Math.min(Math.max(percentiles[i], 0), 100);
+            long countAtPercentile = Math.max(1, (long) (p / 100 * totalCount + 0.5));
+            while (total < countAtPercentile && index < counts.length) {
+                total += counts[index++];
+            }
+            ret[i] = total < countAtPercentile ? max
+                    : Math.max(min, Math.min(max, highestEquivalentValue(index - 1)));
+        }
+        return ret;
+    }
+
+    protected int countsIndex(long value) {
+        int bucketIndex = 63 - subBucketHalfCountMagnitude - Long.numberOfLeadingZeros(value | subBucketMask);
+        int subBucketIndex = (int) (value >>> bucketIndex);
+        return ((bucketIndex + 1) << subBucketHalfCountMagnitude) + (subBucketIndex - subBucketHalfCount);
+    }
+
+    protected long lowestEquivalentValue(int index) {
+        int bucketIndex = (index >> subBucketHalfCountMagnitude) - 1;
+        int subBucketIndex = (index & (subBucketHalfCount - 1)) + subBucketHalfCount;
+        if (bucketIndex < 0) {
+            subBucketIndex -= subBucketHalfCount;
+            bucketIndex = 0;
+        }
+        return (long) subBucketIndex << bucketIndex;
+    }
+
+    protected long sizeOfEquivalentValueRange(int index) {
+        int bucketIndex = (index >> subBucketHalfCountMagnitude) - 1;
+        return 1L << Math.max(0, bucketIndex);
+    }
+
+    protected long highestEquivalentValue(int index) {
+        return lowestEquivalentValue(index) + sizeOfEquivalentValueRange(index) - 1;
+    }
+
+    protected double medianEquivalentValue(int index) {
+        return lowestEquivalentValue(index) + (sizeOfEquivalentValueRange(index) - 1) / 2.0;
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * (C) Copyright 2026 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package org.nuxeo.tools.gatling.report;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.LongStream;
+
+/**
+ * A growable array of int samples, 4 bytes per sample instead of a boxed value and its reference in a list.
+ *
+ * @since 7.0
+ */
+public class IntSamples {
+
+    protected static final int INITIAL_CAPACITY = 16;
+
+    // leave some room for the array header, as ArrayList does
+    protected static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    protected int[] values;
+
+    protected int size;
+
+    protected boolean sorted = true;
+
+    public IntSamples() {
+        values = new int[INITIAL_CAPACITY];
+    }
+
+    public void add(int value) {
+        if (size == values.length) {
+            grow(size + 1);
+        }
+        values[size++] = value;
+        sorted = false;
+    }
+
+    public void addAll(IntSamples other) {
+        if (size + other.size > values.length) {
+            grow(size + other.size);
+        }
+        System.arraycopy(other.values, 0, values, size, other.size);
+        size += other.size;
+        sorted = false;
+    }
+
+    /**
+     * Returns the percentiles of sorted runs of samples as if they were merged, estimated like
+     * {@link #percentile(double)}. The runs are merged in a single pass up to the last sample needed, without building
+     * the merged samples.
+     *
+     * @since 7.0
+     */
+    public static double[] percentiles(List<IntSamples> runs, double... percentiles) {
+        List<IntSamples> sources = new ArrayList<>(runs.size());
+        long total = 0;
+        for (IntSamples run : runs) {
+            if (!run.sorted) {
+                throw new IllegalStateException("Runs must be sorted");
+            }
+            if (run.size > 0) {
+                sources.add(run);
+                total += run.size;
+            }
+        }
+        double[] ret = new double[percentiles.length];
+        if (total == 0) {
+            Arrays.fill(ret, Double.NaN);
+            return ret;
+        }
+        // the merged positions of the samples surrounding each percentile
+        long[] lowers = new long[percentiles.length];
+        long[] uppers = new long[percentiles.length];
+        double[] fractions = new double[percentiles.length];
+        for (int i = 0; i < percentiles.length; i++) {
+            double pos = percentiles[i] * (total + 1) / 100;
+            if (pos < 1) {
+                lowers[i] = uppers[i] = 0;
+            } else if (pos >= total) {
+                lowers[i] = uppers[i] = total - 1;
+            } else {
+                uppers[i] = (long) pos;
+                lowers[i] = uppers[i] - 1;
+                fractions[i] = pos - uppers[i];
+            }
+        }
+        long[] positions = LongStream.concat(Arrays.stream(lowers), Arrays.stream(uppers))
+                                     .sorted()
+                                     .distinct()
+                                     .toArray();
+        int[] values = new int[positions.length];
+        // min heap of the sources by their next sample
+        int count = sources.size();
+        int[] heap = new int[count];
+        int[] nexts = new int[count];
+        for (int i = 0; i < count; i++) {
+            heap[i] = i;
+        }
+        for (int i = count / 2 - 1; i >= 0; i--) {
+            siftDown(sources, nexts, heap, i, count);
+        }
+        int found = 0;
+        for (long position = 0; found < positions.length; position++) {
+            int source = heap[0];
+            IntSamples run = sources.get(source);
+            int value = run.values[nexts[source]++];
+            if (positions[found] == position) {
+                values[found++] = value;
+            }
+            if (nexts[source] == run.size) {
+                heap[0] = heap[--count];
+            }
+            if (count > 0) {
+                siftDown(sources, nexts, heap, 0, count);
+            }
+        }
+        for (int i = 0; i < percentiles.length; i++) {
+            double lower = values[Arrays.binarySearch(positions, lowers[i])];
+            double upper = values[Arrays.binarySearch(positions, uppers[i])];
+            ret[i] = lower + fractions[i] * (upper - lower);
+        }
+        return ret;
+    }
+
+    protected static void siftDown(List<IntSamples> sources, int[] positions, int[] heap, int i, int count) {
+        int source = heap[i];
+        int value = sources.get(source).values[positions[source]];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= count) {
+                break;
+            }
+            int childValue = head(sources, positions, heap[child]);
+            if (child + 1 < count) {
+                int rightValue = head(sources, positions, heap[child + 1]);
+                if (rightValue < childValue) {
+                    child++;
+                    childValue = rightValue;
+                }
+            }
+            if (value <= childValue) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = source;
+    }
+
+    protected static int head(List<IntSamples> sources, int[] positions, int source) {
+        return sources.get(source).values[positions[source]];
+    }
+
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        return values[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Sorts the samples in place, the insertion order is not kept.
+     */
+    public void sort() {
+        if (!sorted) {
+            Arrays.sort(values, 0, size);
+            sorted = true;
+        }
+    }
+
+    /**
+     * Returns the percentile of the sorted samples, estimated like the default commons-math {@code Percentile}: the
+     * position {@code p * (n + 1) / 100} is interpolated between its surrounding samples.
+     */
+    public double percentile(double p) {
+        if (!sorted) {
+            throw new IllegalStateException("Samples must be sorted");
+        }
+        if (size == 0) {
+            return Double.NaN;
+        }
+        double pos = p * (size + 1) / 100;
+        if (pos < 1) {
+            return values[0];
+        }
+        if (pos >= size) {
+            return values[size - 1];
+        }
+        int index = (int) pos;
+        double lower = values[index - 1];
+        return lower + (pos - index) * (values[index] - lower);
+    }
+
+    /**
+     * Returns the samples as doubles, as expected by the statistics of commons-math.
+     */
+    public double[] toDoubleArray() {
+        double[] ret = new double[size];
+        for (int i = 0; i < size; i++) {
+            ret[i] = values[i];
+        }
+        return ret;
+    }
+
+    protected void grow(int minCapacity) {
+        if (minCapacity < 0 || minCapacity > MAX_CAPACITY) {
+            throw new OutOfMemoryError("Too many samples: " + minCapacity);
+        }
+        // grow by half to limit the unused capacity of large arrays
+        long capacity = Math.max(minCapacity, values.length + (values.length >> 1));
+        values = Arrays.copyOf(values, (int) Math.min(capacity, MAX_CAPACITY));
+    }
+
+    /**
+     * Renders the samples as a javascript array.
+     */
+    @Override
+    public String toString() {
+        StringBuilder ret = new StringBuilder(size * 4 + 2);
+        ret.append('[');
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                ret.append(", ");
+            }
+            ret.append(values[i]);
+        }
+        return ret.append(']').toString();
+    }
+}
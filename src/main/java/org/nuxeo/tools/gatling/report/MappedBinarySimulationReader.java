@@ -0,0 +1,215 @@
+/*
+ * (C) Copyright 2026 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package org.nuxeo.tools.gatling.report;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reader for binary format simulation log files backed by memory mapped windows of the file. Values are decoded with
+ * absolute reads and the end of data is a position check, there is no stream or intermediate buffer copy.
+ *
+ * @since 7.0
+ */
+public class MappedBinarySimulationReader extends BinarySimulationReader {
+
+    protected static final long DEFAULT_WINDOW_SIZE = 256L * 1024 * 1024;
+
+    protected final FileChannel channel;
+
+    protected final long size;
+
+    // end of the records to read, the file may be read before for cached strings
+    protected final long end;
+
+    protected final long windowSize;
+
+    protected MappedByteBuffer window;
+
+    // a view of the window to copy string bytes
+    protected ByteBuffer view;
+
+    protected long windowStart;
+
+    protected int pos, limit;
+
+    // file offsets of the cached string definitions indexed by cache index, 0 when unknown
+    protected long[] stringOffsets = new long[64];
+
+    public MappedBinarySimulationReader(File file) throws IOException {
+        this(file, DEFAULT_WINDOW_SIZE);
+    }
+
+    public MappedBinarySimulationReader(File file, long windowSize) throws IOException {
+        this(file, 0, Long.MAX_VALUE, windowSize);
+    }
+
+    /**
+     * Reads the records between {@code start} and {@code end}, cached strings defined before {@code start} are
+     * resolved with the offsets given by {@link #setStringOffsets(long[])}.
+     */
+    public MappedBinarySimulationReader(File file, long start, long end, long windowSize) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.size = channel.size();
+        this.end = Math.min(end, size);
+        this.windowSize = windowSize;
+        this.windowStart = start;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        // require() may map a new window, it must run before the window is read
+        int index = require(Byte.BYTES);
+        return window.get(index);
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        int index = require(Integer.BYTES);
+        return window.getInt(index);
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        int index = require(Long.BYTES);
+        return window.getLong(index);
+    }
+
+    @Override
+    public String readString() throws IOException {
+        int length = readInt();
+        if (length == 0) {
+            return "";
+        }
+        byte[] value = new byte[length];
+        int index = require(length);
+        ((Buffer) view).position(index);
+        view.get(value);
+        byte coder = readByte();
+        return StringInternals.newString(value, coder);
+    }
+
+    @Override
+    public void skip(int len) throws IOException {
+        require(len);
+    }
+
+    /**
+     * Skips a cached string, the offset of a definition is kept to decode it later.
+     */
+    @Override
+    public void skipCachedString() throws IOException {
+        int cachedIndex = readInt();
+        if (cachedIndex >= 0) {
+            if (cachedIndex >= stringOffsets.length) {
+                stringOffsets = Arrays.copyOf(stringOffsets, Math.max(cachedIndex + 1, stringOffsets.length * 2));
+            }
+            stringOffsets[cachedIndex] = getPosition();
+            skipString();
+        }
+    }
+
+    /**
+     * Returns a cached string, decoding it from its definition offset when it was defined out of the records read.
+     */
+    @Override
+    public String getCachedString(int cachedIndex) throws IOException {
+        String ret = super.getCachedString(cachedIndex);
+        if (ret == null && cachedIndex > 0 && cachedIndex < stringOffsets.length && stringOffsets[cachedIndex] > 0) {
+            long position = getPosition();
+            seek(stringOffsets[cachedIndex]);
+            ret = readString();
+            seek(position);
+            cacheString(cachedIndex, ret);
+        }
+        return ret;
+    }
+
+    public long[] getStringOffsets() {
+        return stringOffsets;
+    }
+
+    public void setStringOffsets(long[] stringOffsets) {
+        // copied, the offsets of the strings skipped by this reader are added
+        this.stringOffsets = stringOffsets.clone();
+    }
+
+    @Override
+    public boolean hasMore() {
+        return getPosition() < end;
+    }
+
+    /**
+     * Returns the file offset of the next value to read.
+     */
+    public long getPosition() {
+        return windowStart + pos;
+    }
+
+    protected void seek(long position) {
+        if (position >= windowStart && position <= windowStart + limit) {
+            pos = (int) (position - windowStart);
+        } else {
+            // the window is mapped by the next read
+            windowStart = position;
+            pos = 0;
+            limit = 0;
+        }
+    }
+
+    /**
+     * Returns the window index of the next {@code count} bytes and moves after them, the file is mapped again when
+     * they are not in the current window.
+     */
+    protected int require(int count) throws IOException {
+        if (limit - pos < count) {
+            remap(count);
+        }
+        int ret = pos;
+        pos += count;
+        return ret;
+    }
+
+    protected void remap(int count) throws IOException {
+        long start = windowStart + pos;
+        if (count < 0 || start + count > size) {
+            throw new EOFException("Failed to read " + count + " bytes at position " + start);
+        }
+        long length = Math.min(Math.max(windowSize, count), size - start);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        view = ((ByteBuffer) window).duplicate();
+        windowStart = start;
+        pos = 0;
+        limit = (int) length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        view = null;
+        channel.close();
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * (C) Copyright 2026 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package org.nuxeo.tools.gatling.report;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An input stream reading a range of a file through memory mapped windows, so files larger than 2GB can be read
+ * without copying them into the heap.
+ *
+ * @since 7.0
+ */
+public class MappedFileInputStream extends InputStream {
+
+    protected static final long DEFAULT_WINDOW_SIZE = 256L * 1024 * 1024;
+
+    protected final FileChannel channel;
+
+    protected final long end;
+
+    protected final long windowSize;
+
+    protected long position;
+
+    protected MappedByteBuffer window;
+
+    public MappedFileInputStream(File file) throws IOException {
+        this(file, 0, file.length());
+    }
+
+    public MappedFileInputStream(File file, long start, long end) throws IOException {
+        this(file, start, end, DEFAULT_WINDOW_SIZE);
+    }
+
+    public MappedFileInputStream(File file, long start, long end, long windowSize) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.position = start;
+        this.end = Math.min(end, channel.size());
+        this.windowSize = windowSize;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureWindow()) {
+            return -1;
+        }
+        return window.get() & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureWindow()) {
+            return -1;
+        }
+        int count = Math.min(len, window.remaining());
+        window.get(b, off, count);
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long current = getPosition();
+        long skipped = Math.max(0, Math.min(n, end - current));
+        position = current + skipped;
+        window = null;
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, end - getPosition());
+    }
+
+    /**
+     * Returns the absolute position in the file of the next byte to read.
+     */
+    public long getPosition() {
+        if (window == null) {
+            return position;
+        }
+        return position + window.position();
+    }
+
+    protected boolean ensureWindow() throws IOException {
+        if (window != null && window.hasRemaining()) {
+            return true;
+        }
+        if (window != null) {
+            position += window.limit();
+            window = null;
+        }
+        if (position >= end) {
+            return false;
+        }
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize, end - position));
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+}
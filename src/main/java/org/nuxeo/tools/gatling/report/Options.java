@@ -18,9 +18,12 @@ package org.nuxeo.tools.gatling.report;
 
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+import com.beust.jcommander.IStringConverter;
 import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
 import com.beust.jcommander.internal.Lists;
 
 public class Options {
@@ -66,6 +69,36 @@ public class Options {
                     + " to tolerable.")
     public Float apdexT = 1.5f;
 
+    @Parameter(names = { "--threads" }, description = "Number of threads used to parse an uncompressed simulation, with more"
+            + " than one thread a gzip simulation is inflated by a dedicated thread.")
+    public int threads = 1;
+
+    @Parameter(names = { "--histogram" }, description = "Compute the percentiles from a log-linear histogram using a constant"
+            + " memory per request instead of keeping every response time, percentiles are approximated.")
+    public boolean histogram = false;
+
+    @Parameter(names = { "--significant-digits" }, description = "Number of significant digits of the histogram, from 1 to 5,"
+            + " the relative error of a percentile is below 10^-digits.")
+    public int significantDigits = StatsConfig.DEFAULT_HISTOGRAM_DIGITS;
+
+    @Parameter(names = { "--percentiles" }, description = "Comma separated list of the percentiles to report, default to"
+            + " 50,90,95,99, ex: 50,75,99.9,99.99", converter = PercentilesConverter.class)
+    public double[] percentiles;
+
+    @Parameter(names = { "--summary-only" }, description = "Keep no response time, only compute the count, errors, min, max,"
+            + " average, standard deviation, throughput and Apdex using a constant memory per request, percentiles are"
+            + " reported only when set with --percentiles and are then approximated.")
+    public boolean summaryOnly = false;
+
+    @Parameter(names = { "--time-bucket" }, description = "Width in ms of the time buckets of the throughput and response"
+            + " time over time, used with --time-series.")
+    public int timeBucket = TimeSeries.DEFAULT_BUCKET_WIDTH;
+
+    @Parameter(names = { "--time-series" }, description = "Aggregate the requests per time bucket for the throughput over"
+            + " time and the saturation curve, using a memory growing with the duration of the simulation. Write"
+            + " them in a timeseries.csv file of the report, requires -o.")
+    public boolean timeSeries = false;
+
     @Parameter(names = { "--help", "-h" }, description = "Display this message.", help = true)
     public boolean help;
 
@@ -78,4 +111,26 @@ public class Options {
         }
         return ZoneId.of(timeZoneString);
     }
+
+    /**
+     * Parses and validates a comma separated list of percentiles.
+     *
+     * @since 7.0
+     */
+    public static class PercentilesConverter implements IStringConverter<double[]> {
+        @Override
+        public double[] convert(String value) {
+            try {
+                double[] ret = Arrays.stream(value.split(","))
+                                     .map(String::trim)
+                                     .mapToDouble(Double::parseDouble)
+                                     .toArray();
+                new StatsConfig().percentiles(ret);
+                return ret;
+            } catch (IllegalArgumentException e) {
+                // also a NumberFormatException
+                throw new ParameterException("Invalid --percentiles " + value + ": " + e.getMessage());
+            }
+        }
+    }
 }
@@ -18,6 +18,7 @@ package org.nuxeo.tools.gatling.report;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 
 public class ParserFactory {
@@ -31,13 +32,25 @@ public class ParserFactory {
     }
 
     protected static SimulationParser getVersionSpecificParser(File file, Float apdexT) throws IOException {
-        // First check if the file is binary format
-        if (Utils.isBinaryFormat(file)) {
-            return new SimulationParserBinary(file, apdexT);
+        // Sniff the format and the version on a single stream, a text parser continues from it
+        SimulationReader reader = new SimulationReader(Utils.getInputStreamFor(file));
+        try {
+            if (!Utils.isCompressed(file) && isBinaryFormat(reader)) {
+                reader.close();
+                return new SimulationParserBinary(file, apdexT);
+            }
+            SimulationLine line = reader.readNext();
+            List<String> header = line == null ? Collections.emptyList() : line.toList();
+            SimulationParser ret = getTextParser(file, apdexT, header);
+            reader.unread();
+            return ret.setReader(reader);
+        } catch (IOException | RuntimeException e) {
+            reader.close();
+            throw e;
         }
+    }
 
-        // Otherwise, try to parse as text format
-        List<String> header = getHeaderLine(file);
+    protected static SimulationParser getTextParser(File file, Float apdexT, List<String> header) {
         if (header.size() == 6) {
             String version = header.get(5);
             if (version.startsWith("2.")) {
@@ -66,10 +79,12 @@ public class ParserFactory {
         throw new IllegalArgumentException("Unknown Gatling simulation version: " + header);
     }
 
-    protected static List<String> getHeaderLine(File file) throws IOException {
-        try (SimulationReader reader = new SimulationReader(file)) {
-            return reader.readNext();
-        }
+    /**
+     * Binary format starts with four zero bytes.
+     */
+    protected static boolean isBinaryFormat(SimulationReader reader) throws IOException {
+        byte[] header = reader.peek(4);
+        return header.length == 4 && header[0] == 0 && header[1] == 0 && header[2] == 0 && header[3] == 0;
     }
 
 }
@@ -0,0 +1,156 @@
+/*
+ * (C) Copyright 2026 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package org.nuxeo.tools.gatling.report;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A gzip input stream inflated by a dedicated thread. The inflater fills a fixed pool of large buffers and hands them
+ * to the reader through a bounded queue, so inflating and parsing run concurrently with a bounded memory.
+ *
+ * @since 7.0
+ */
+public class PipelinedGzipInputStream extends InputStream {
+
+    protected static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+    protected static final int DEFAULT_BUFFER_COUNT = 4;
+
+    protected static final Chunk END_OF_STREAM = new Chunk(null, -1, null);
+
+    protected final BlockingQueue<byte[]> free;
+
+    protected final BlockingQueue<Chunk> filled;
+
+    protected final Thread inflater;
+
+    protected Chunk current;
+
+    protected int pos;
+
+    public PipelinedGzipInputStream(File file) throws IOException {
+        this(new GZIPInputStream(new FileInputStream(file), 64 * 1024), DEFAULT_BUFFER_SIZE, DEFAULT_BUFFER_COUNT);
+    }
+
+    public PipelinedGzipInputStream(InputStream input, int bufferSize, int bufferCount) {
+        free = new ArrayBlockingQueue<>(bufferCount);
+        filled = new ArrayBlockingQueue<>(bufferCount + 1);
+        for (int i = 0; i < bufferCount; i++) {
+            free.add(new byte[bufferSize]);
+        }
+        inflater = new Thread(() -> inflate(input), "gzip-inflater");
+        inflater.setDaemon(true);
+        inflater.start();
+    }
+
+    protected void inflate(InputStream input) {
+        try (InputStream in = input) {
+            for (;;) {
+                byte[] buffer = free.take();
+                int length = 0;
+                int count;
+                while (length < buffer.length && (count = in.read(buffer, length, buffer.length - length)) != -1) {
+                    length += count;
+                }
+                if (length > 0) {
+                    filled.put(new Chunk(buffer, length, null));
+                }
+                if (length < buffer.length) {
+                    break;
+                }
+            }
+            filled.put(END_OF_STREAM);
+        } catch (IOException e) {
+            filled.offer(new Chunk(null, -1, e));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            // any failure must reach the reader, otherwise it waits forever for the next chunk
+            filled.offer(new Chunk(null, -1, new IOException("Failed to inflate the gzip stream", e)));
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!nextChunk()) {
+            return -1;
+        }
+        return current.buffer[pos++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!nextChunk()) {
+            return -1;
+        }
+        int count = Math.min(len, current.length - pos);
+        System.arraycopy(current.buffer, pos, b, off, count);
+        pos += count;
+        return count;
+    }
+
+    protected boolean nextChunk() throws IOException {
+        if (current == END_OF_STREAM) {
+            return false;
+        }
+        if (current != null && pos < current.length) {
+            return true;
+        }
+        if (current != null) {
+            free.add(current.buffer);
+        }
+        try {
+            current = filled.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the gzip inflater", e);
+        }
+        pos = 0;
+        if (current.error != null) {
+            IOException error = current.error;
+            current = END_OF_STREAM;
+            throw error;
+        }
+        return current != END_OF_STREAM;
+    }
+
+    @Override
+    public void close() {
+        inflater.interrupt();
+        current = END_OF_STREAM;
+    }
+
+    protected static class Chunk {
+        protected final byte[] buffer;
+
+        protected final int length;
+
+        protected final IOException error;
+
+        protected Chunk(byte[] buffer, int length, IOException error) {
+            this.buffer = buffer;
+            this.length = length;
+            this.error = error;
+        }
+    }
+}
@@ -24,9 +24,6 @@ import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.atomic.AtomicInteger;
 
-import org.apache.commons.math3.stat.StatUtils;
-import org.apache.commons.math3.stat.descriptive.moment.StandardDeviation;
-
 public class RequestStat {
     public static final long MAX_BOXPOINT = 50000;
 
@@ -50,16 +47,35 @@ public class RequestStat {
 
     protected long min, max, stddev, p50, p90, p95, p99;
 
+    // the configured percentiles, p50 to p99 are always computed for the existing templates
+    protected final double[] percentiles;
+
+    protected long[] percentileValues;
+
     protected double rps, avg;
 
+    // streaming moments of the durations: exact sum, Welford mean and sum of squared deviations
+    protected long sum;
+
+    protected double mean, m2;
+
     protected double duration;
 
-    protected final List<Double> durations;
+    // null in histogram and summary-only modes
+    protected final IntSamples durations;
+
+    // replaces the samples in histogram mode
+    protected final Histogram histogram;
+
+    // percentiles 0 to 100 then the configured ones, of the samples of the merged requests, set instead of samples
+    protected double[] mergedPercentiles;
 
     protected Graphite graphite;
 
     protected final Apdex apdex;
 
+    protected final TopErrors errors = new TopErrors();
+
     protected int maxUsers;
 
     public long getCount() {
@@ -67,19 +83,39 @@ public class RequestStat {
     }
 
     public RequestStat(String simulation, String scenario, String request, long start, Float apdexT) {
+        this(simulation, scenario, request, start, apdexT, new StatsConfig());
+    }
+
+    /**
+     * @since 7.0
+     */
+    public RequestStat(String simulation, String scenario, String request, long start, Float apdexT,
+            StatsConfig config) {
         this.simulation = simulation;
         this.scenario = scenario;
         this.request = request;
         requestId = Utils.getIdentifier(request);
         this.start = start;
-        durations = new ArrayList<>();
+        durations = config.isSampling() ? new IntSamples() : null;
+        histogram = config.isHistogram() ? new Histogram(config.getHistogramDigits()) : null;
+        percentiles = config.getPercentiles();
+        percentileValues = new long[percentiles.length];
         indice = statCounter.incrementAndGet();
         apdex = new Apdex(apdexT);
     }
 
     public static String header() {
+        return header(new StatsConfig());
+    }
+
+    /**
+     * Returns the CSV header with a column per configured percentile.
+     *
+     * @since 7.0
+     */
+    public static String header(StatsConfig config) {
         return "simulation\tscenario\tmaxUsers\trequest\tstart\tstartDate\tduration\tend\tcount\tsuccessCount\t"
-                + "errorCount\tmin\tp50\tp90\tp95\tp99\tmax\tavg\tstddev\trps\tapdex\trating";
+                + "errorCount\tmin\t" + config.getPercentileColumns() + "max\tavg\tstddev\trps\tapdex\trating";
     }
 
     public void add(long start, long end, boolean success) {
@@ -93,28 +129,122 @@ public class RequestStat {
             errorCount += 1;
         }
         long duration = end - start;
-        durations.add((double) duration);
+        if (count == 1) {
+            min = max = duration;
+        } else {
+            min = Math.min(min, duration);
+            max = Math.max(max, duration);
+        }
+        sum += duration;
+        double delta = duration - mean;
+        mean += delta / count;
+        m2 += delta * (duration - mean);
+        if (histogram != null) {
+            histogram.add(duration);
+        } else if (durations != null) {
+            durations.add((int) Math.min(duration, Integer.MAX_VALUE));
+        }
         apdex.addMs(duration);
     }
 
+    /**
+     * Counts the message of a failed request or of an error.
+     *
+     * @since 7.0
+     */
+    public void addError(String message) {
+        errors.add(message);
+    }
+
+    /**
+     * Merges the samples of a stat that aggregated the records following the ones of this stat.
+     *
+     * @since 7.0
+     */
+    public void merge(RequestStat other) {
+        mergeAggregates(other);
+        if (histogram != null) {
+            histogram.merge(other.histogram);
+        } else if (durations != null) {
+            durations.addAll(other.durations);
+        }
+    }
+
+    /**
+     * Merges the stats of other requests without copying their samples: the samples of each request are sorted, then
+     * the percentiles are read while merging the sorted runs. The percentiles are computed here, the samples of the
+     * other requests must not change after this call.
+     *
+     * @since 7.0
+     */
+    public void mergeSorted(List<RequestStat> others) {
+        List<IntSamples> runs = new ArrayList<>(others.size() + 1);
+        for (RequestStat other : others) {
+            mergeAggregates(other);
+            if (histogram != null) {
+                histogram.merge(other.histogram);
+            } else if (durations != null) {
+                other.durations.sort();
+                runs.add(other.durations);
+            }
+        }
+        if (durations != null && count > 0) {
+            durations.sort();
+            runs.add(durations);
+            double[] ranks = new double[101 + percentiles.length];
+            for (int i = 0; i <= 100; i++) {
+                ranks[i] = i;
+            }
+            System.arraycopy(percentiles, 0, ranks, 101, percentiles.length);
+            mergedPercentiles = IntSamples.percentiles(runs, ranks);
+        }
+    }
+
+    /**
+     * Merges everything but the samples.
+     */
+    protected void mergeAggregates(RequestStat other) {
+        errors.merge(other.errors);
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            min = other.min;
+            max = other.max;
+        } else {
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+        // parallel combination of the Welford moments
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        m2 += other.m2 + delta * delta * count * other.count / total;
+        sum += other.sum;
+        count = total;
+        errorCount += other.errorCount;
+        if (start == 0) {
+            start = other.start;
+        }
+        start = Math.min(start, other.start);
+        end = Math.max(end, other.end);
+        apdex.merge(other.apdex);
+    }
+
     public void computeStat(int maxUsers) {
         computeStat((end - start) / 1000.0, maxUsers);
     }
 
     public void computeStat(double duration, int maxUsers) {
-        double[] times = getDurationAsArray();
-        min = (long) StatUtils.min(times);
-        max = (long) StatUtils.max(times);
-        double sum = 0;
-        for (double d : times)
-            sum += d;
-        avg = sum / times.length;
-        p50 = (long) StatUtils.percentile(times, 50.0);
-        p90 = (long) StatUtils.percentile(times, 90.0);
-        p95 = (long) StatUtils.percentile(times, 95.0);
-        p99 = (long) StatUtils.percentile(times, 99.0);
-        StandardDeviation stdDev = new StandardDeviation();
-        stddev = (long) stdDev.evaluate(times, avg);
+        avg = (double) sum / count;
+        stddev = (long) getStandardDeviation();
+        if (histogram != null) {
+            computeHistogramStat();
+        } else if (mergedPercentiles != null) {
+            computeMergedStat();
+        } else if (durations != null) {
+            computeSampleStat();
+        }
         this.duration = duration;
         this.maxUsers = maxUsers;
         rps = (count - errorCount) / duration;
@@ -122,6 +252,45 @@ public class RequestStat {
         successCount = count - errorCount;
     }
 
+    protected void computeHistogramStat() {
+        p50 = histogram.getValueAtPercentile(50.0);
+        p90 = histogram.getValueAtPercentile(90.0);
+        p95 = histogram.getValueAtPercentile(95.0);
+        p99 = histogram.getValueAtPercentile(99.0);
+        percentileValues = histogram.getValuesAtPercentiles(percentiles);
+    }
+
+    protected void computeSampleStat() {
+        // a single sort gives all the percentiles
+        durations.sort();
+        p50 = (long) durations.percentile(50.0);
+        p90 = (long) durations.percentile(90.0);
+        p95 = (long) durations.percentile(95.0);
+        p99 = (long) durations.percentile(99.0);
+        for (int i = 0; i < percentiles.length; i++) {
+            percentileValues[i] = (long) durations.percentile(percentiles[i]);
+        }
+    }
+
+    protected void computeMergedStat() {
+        p50 = (long) mergedPercentiles[50];
+        p90 = (long) mergedPercentiles[90];
+        p95 = (long) mergedPercentiles[95];
+        p99 = (long) mergedPercentiles[99];
+        for (int i = 0; i < percentiles.length; i++) {
+            percentileValues[i] = (long) mergedPercentiles[101 + i];
+        }
+    }
+
+    /**
+     * Returns the sample standard deviation of the durations, available without keeping the samples.
+     *
+     * @since 7.0
+     */
+    public double getStandardDeviation() {
+        return count < 2 ? 0 : Math.sqrt(m2 / (count - 1));
+    }
+
     public void setSimulationName(String name) {
         simulation = name;
     }
@@ -145,6 +314,34 @@ public class RequestStat {
         return "false";
     }
 
+    /**
+     * Returns the values of the box plot, the samples or in histogram mode and for merged requests the 101
+     * percentiles from 0 to 100, only the min and max in summary-only mode.
+     *
+     * @since 7.0
+     */
+    public IntSamples boxValues() {
+        if (durations != null && mergedPercentiles == null) {
+            return durations;
+        }
+        IntSamples ret = new IntSamples();
+        if (mergedPercentiles != null) {
+            for (int i = 0; i <= 100; i++) {
+                ret.add((int) mergedPercentiles[i]);
+            }
+            return ret;
+        }
+        if (histogram == null) {
+            ret.add((int) Math.min(min, Integer.MAX_VALUE));
+            ret.add((int) Math.min(max, Integer.MAX_VALUE));
+            return ret;
+        }
+        for (int i = 0; i <= 100; i++) {
+            ret.add((int) Math.min(histogram.getValueAtPercentile(i), Integer.MAX_VALUE));
+        }
+        return ret;
+    }
+
     public String throughput() {
         return String.format(Locale.ENGLISH, "%.1f", rps);
     }
@@ -162,10 +359,37 @@ public class RequestStat {
         return formatter.format(Instant.ofEpochMilli(start));
     }
 
-    protected double[] getDurationAsArray() {
-        double[] ret = new double[durations.size()];
-        for (int i = 0; i < durations.size(); i++) {
-            ret[i] = durations.get(i);
+    /**
+     * Returns the most frequent error messages.
+     *
+     * @since 7.0
+     */
+    public List<TopErrors.ErrorCount> getTopErrors() {
+        return errors.getTop();
+    }
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+
+    /**
+     * Returns false when no percentile is computed, in summary-only mode without percentiles.
+     *
+     * @since 7.0
+     */
+    public boolean hasPercentiles() {
+        return histogram != null || durations != null;
+    }
+
+    /**
+     * Returns the configured percentiles with their value.
+     *
+     * @since 7.0
+     */
+    public List<PercentileValue> getPercentiles() {
+        List<PercentileValue> ret = new ArrayList<>(percentiles.length);
+        for (int i = 0; i < percentiles.length; i++) {
+            ret.add(new PercentileValue(StatsConfig.getPercentileName(percentiles[i]), percentileValues[i]));
         }
         return ret;
     }
@@ -176,9 +400,37 @@ public class RequestStat {
 
     @Override
     public String toString() {
+        StringBuilder values = new StringBuilder();
+        for (long value : percentileValues) {
+            values.append(value).append('\t');
+        }
         return String.format(Locale.ENGLISH,
-                "%s\t%s\t%s\t%s\t%s\t%s\t%.2f\t%s\t%s\t%s\t%s\t%s\t%s\t%s\t%s\t%s\t%s\t%.2f\t%s\t%.2f\t%.2f\t%s",
-                simulation, scenario, maxUsers, request, start, startDate, duration, end, count, successCount,
-                errorCount, min, p50, p90, p95, p99, max, avg, stddev, rps, apdex.getScore(), apdex.getRating());
+                "%s\t%s\t%s\t%s\t%s\t%s\t%.2f\t%s\t%s\t%s\t%s\t%s\t%s%s\t%.2f\t%s\t%.2f\t%.2f\t%s", simulation,
+                scenario, maxUsers, request, start, startDate, duration, end, count, successCount, errorCount, min,
+                values, max, avg, stddev, rps, apdex.getScore(), apdex.getRating());
+    }
+
+    /**
+     * A named percentile value, to list the configured percentiles in templates.
+     *
+     * @since 7.0
+     */
+    public static class PercentileValue {
+        protected final String name;
+
+        protected final long value;
+
+        public PercentileValue(String name, long value) {
+            this.name = name;
+            this.value = value;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getValue() {
+            return value;
+        }
     }
 }
@@ -0,0 +1,391 @@
+/*
+ * (C) Copyright 2026 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package org.nuxeo.tools.gatling.report;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+import java.util.function.ToDoubleFunction;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.LUDecomposition;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+import org.apache.commons.math3.linear.SingularMatrixException;
+
+/**
+ * Throughput and response time by number of active users, built from the time buckets of a simulation, typically a
+ * step ramp. The buckets with the same number of active users are merged into a level, the active users are binned
+ * so a continuous ramp gives at most {@link #MAX_LEVELS} levels, a level has the mean active users of its buckets.
+ * <p>
+ * The throughput is fitted with the Universal Scalability Law
+ * {@code X(N) = lambda N / (1 + sigma (N - 1) + kappa N (N - 1))}, where sigma is the contention and kappa the
+ * coherency delay, using its linear form {@code N / X(N) = a + b N + c N^2} weighted by the number of buckets of each
+ * level. Negative coefficients have no physical meaning, the fitted law may then have a pole in the measured range:
+ * the law is fitted again without coherency delay, without contention and as a linear scaling, the best fit with non
+ * negative coefficients is kept. The knee is the level the farthest above the diagonal of the normalized fitted
+ * curve (Kneedle), the concurrency where the throughput stops scaling linearly, provided that the p95 response time
+ * climbs after it. A throughput that stops scaling with a steady response time is not a saturation of the system
+ * under test.
+ *
+ * @since 7.0
+ */
+public class SaturationCurve {
+
+    protected static final double LATENCY_PERCENTILE = 95;
+
+    protected static final int MIN_LEVELS = 3;
+
+    protected static final int MAX_LEVELS = 50;
+
+    // ratio of the p95 of a following level to the p95 of the knee, to consider that the response time climbs
+    protected static final double MIN_LATENCY_CLIMB = 1.5;
+
+    // normalized distance to the diagonal below which the throughput is considered to scale linearly
+    protected static final double MIN_KNEE_DISTANCE = 0.05;
+
+    // the basis of each fitted model as coefficients of 1, N and N^2: the full law, without coherency delay, without
+    // contention, a linear scaling
+    protected static final double[][][] MODELS = { { { 1, 0, 0 }, { 0, 1, 0 }, { 0, 0, 1 } },
+            { { 1, 0, 0 }, { 0, 1, 0 } }, { { 1, 0, 0 }, { 0, -1, 1 } }, { { 1, 0, 0 } } };
+
+    // rounding error tolerated on a coefficient fitted as 0
+    protected static final double EPSILON = 1e-9;
+
+    protected final List<Level> levels = new ArrayList<>();
+
+    // Universal Scalability Law coefficients, NaN when not fitted
+    protected double lambda = Double.NaN, sigma = Double.NaN, kappa = Double.NaN;
+
+    protected Level knee;
+
+    public SaturationCurve(TimeSeries series) {
+        TreeMap<Integer, Level> byUsers = new TreeMap<>();
+        int[] active = series.getActiveUsers();
+        int maxActive = 0;
+        for (int users : active) {
+            maxActive = Math.max(maxActive, users);
+        }
+        int binWidth = Math.max(1, (maxActive + MAX_LEVELS - 1) / MAX_LEVELS);
+        // the last bucket is usually truncated by the end of the simulation
+        for (int i = 0; i < series.size - 1; i++) {
+            if (active[i] > 0) {
+                byUsers.computeIfAbsent((active[i] - 1) / binWidth, k -> new Level()).add(series, i, active[i]);
+            }
+        }
+        levels.addAll(byUsers.values());
+        levels.forEach(Level::computeLatency);
+        if (levels.size() >= MIN_LEVELS) {
+            fit();
+            knee = findKnee();
+        }
+    }
+
+    protected void fit() {
+        double scale = levels.get(levels.size() - 1).users;
+        double bestResidual = Double.POSITIVE_INFINITY;
+        for (double[][] model : MODELS) {
+            double[] coefficients = fit(model, scale);
+            if (coefficients == null) {
+                continue;
+            }
+            double a = coefficients[0], b = coefficients[1], c = coefficients[2];
+            double inverseLambda = a + b + c;
+            if (!(inverseLambda > 0) || Double.isInfinite(inverseLambda)) {
+                continue;
+            }
+            double fittedKappa = c / inverseLambda;
+            double fittedSigma = b / inverseLambda + fittedKappa;
+            if (fittedSigma < -EPSILON || fittedKappa < -EPSILON) {
+                continue;
+            }
+            double residual = 0;
+            for (Level level : levels) {
+                if (level.throughput > 0) {
+                    double n = level.users;
+                    double error = n / level.throughput - (a + b * n + c * n * n);
+                    residual += level.buckets * error * error;
+                }
+            }
+            if (residual < bestResidual) {
+                bestResidual = residual;
+                lambda = 1 / inverseLambda;
+                sigma = Math.max(0, fittedSigma);
+                kappa = Math.max(0, fittedKappa);
+            }
+        }
+        if (!isFitted()) {
+            return;
+        }
+        for (Level level : levels) {
+            level.fitted = getFittedThroughput(level.users);
+        }
+    }
+
+    /**
+     * Fits the linear form on a basis with weighted least squares, returns the coefficients of 1, N and N^2 or null.
+     * Each basis function is divided by the power of the scale of its degree to keep the equations well conditioned.
+     */
+    protected double[] fit(double[][] basis, double scale) {
+        int size = basis.length;
+        double[] divisors = new double[size];
+        for (int k = 0; k < size; k++) {
+            int degree = basis[k][2] != 0 ? 2 : basis[k][1] != 0 ? 1 : 0;
+            divisors[k] = Math.pow(scale, degree);
+        }
+        double[][] normal = new double[size][size];
+        double[] target = new double[size];
+        double[] values = new double[size];
+        for (Level level : levels) {
+            if (level.throughput <= 0) {
+                continue;
+            }
+            double n = level.users;
+            double y = n / level.throughput;
+            for (int k = 0; k < size; k++) {
+                values[k] = (basis[k][0] + basis[k][1] * n + basis[k][2] * n * n) / divisors[k];
+            }
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < size; j++) {
+                    normal[i][j] += level.buckets * values[i] * values[j];
+                }
+                target[i] += level.buckets * values[i] * y;
+            }
+        }
+        RealVector solution;
+        try {
+            RealMatrix matrix = new Array2DRowRealMatrix(normal, false);
+            solution = new LUDecomposition(matrix).getSolver().solve(new ArrayRealVector(target, false));
+        } catch (SingularMatrixException e) {
+            return null;
+        }
+        double[] ret = new double[3];
+        for (int k = 0; k < size; k++) {
+            for (int j = 0; j < 3; j++) {
+                ret[j] += solution.getEntry(k) * basis[k][j] / divisors[k];
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Returns the throughput predicted by the fitted law for a number of users.
+     */
+    public double getFittedThroughput(double users) {
+        return lambda * users / (1 + sigma * (users - 1) + kappa * users * (users - 1));
+    }
+
+    protected Level findKnee() {
+        ToDoubleFunction<Level> throughput = isFitted() ? level -> level.fitted : level -> level.throughput;
+        double minUsers = levels.get(0).users;
+        double maxUsers = levels.get(levels.size() - 1).users;
+        double minThroughput = levels.stream().mapToDouble(throughput).min().getAsDouble();
+        double maxThroughput = levels.stream().mapToDouble(throughput).max().getAsDouble();
+        if (maxThroughput <= minThroughput) {
+            return null;
+        }
+        // the highest p95 of the levels following each level
+        long[] nextLatencies = new long[levels.size()];
+        for (int i = levels.size() - 2; i >= 0; i--) {
+            nextLatencies[i] = Math.max(nextLatencies[i + 1], levels.get(i + 1).latency);
+        }
+        Level ret = null;
+        double distance = MIN_KNEE_DISTANCE;
+        for (int i = 0; i < levels.size(); i++) {
+            Level level = levels.get(i);
+            double x = (level.users - minUsers) / (maxUsers - minUsers);
+            double y = (throughput.applyAsDouble(level) - minThroughput) / (maxThroughput - minThroughput);
+            if (y - x > distance && nextLatencies[i] >= MIN_LATENCY_CLIMB * level.latency) {
+                distance = y - x;
+                ret = level;
+            }
+        }
+        return ret;
+    }
+
+    public List<Level> getLevels() {
+        return levels;
+    }
+
+    public boolean hasLevels() {
+        return levels.size() >= MIN_LEVELS;
+    }
+
+    public boolean isFitted() {
+        return !Double.isNaN(lambda);
+    }
+
+    public Level getKnee() {
+        return knee;
+    }
+
+    public boolean hasKnee() {
+        return knee != null;
+    }
+
+    public double getLambda() {
+        return lambda;
+    }
+
+    public double getSigma() {
+        return sigma;
+    }
+
+    public double getKappa() {
+        return kappa;
+    }
+
+    /**
+     * Returns the number of users of the maximum of the fitted throughput, only when the coherency delay makes the
+     * throughput decrease.
+     */
+    public double getPeakUsers() {
+        if (!isFitted() || !(kappa > 0) || !(sigma >= 0) || sigma >= 1) {
+            return Double.NaN;
+        }
+        double ret = Math.sqrt((1 - sigma) / kappa);
+        if (!(ret > 0) || Double.isInfinite(ret) || !(getFittedThroughput(ret) > 0)) {
+            return Double.NaN;
+        }
+        return ret;
+    }
+
+    public String contention() {
+        return format(sigma, "%.4f");
+    }
+
+    public String coherency() {
+        return format(kappa, "%.6f");
+    }
+
+    public String throughputPerUser() {
+        return format(lambda, "%.2f");
+    }
+
+    public String peakUsers() {
+        return format(getPeakUsers(), "%.1f");
+    }
+
+    public String peakThroughput() {
+        double users = getPeakUsers();
+        return format(Double.isNaN(users) ? Double.NaN : getFittedThroughput(users), "%.1f");
+    }
+
+    public String users() {
+        return toArray(level -> level.users);
+    }
+
+    public String throughputs() {
+        return toArray(level -> level.throughput);
+    }
+
+    public String fittedThroughputs() {
+        return toArray(level -> level.fitted);
+    }
+
+    public String latencies() {
+        return toArray(level -> level.latency);
+    }
+
+    protected String toArray(ToDoubleFunction<Level> value) {
+        StringBuilder ret = new StringBuilder();
+        ret.append('[');
+        for (int i = 0; i < levels.size(); i++) {
+            if (i > 0) {
+                ret.append(", ");
+            }
+            ret.append(format(value.applyAsDouble(levels.get(i)), "%.1f"));
+        }
+        return ret.append(']').toString();
+    }
+
+    protected static String format(double value, String format) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return "null";
+        }
+        return String.format(Locale.ENGLISH, format, value);
+    }
+
+    /**
+     * The buckets with the same number of active users, or within the same bin of active users.
+     */
+    public static class Level {
+        // mean active users of the buckets
+        protected double users;
+
+        protected long sumUsers;
+
+        protected int buckets;
+
+        protected long count;
+
+        protected double throughput, fitted = Double.NaN;
+
+        protected long latency;
+
+        protected Histogram histogram;
+
+        protected void add(TimeSeries series, int index, int activeUsers) {
+            buckets++;
+            sumUsers += activeUsers;
+            users = (double) sumUsers / buckets;
+            count += series.counts[index];
+            throughput = count * 1000.0 / ((long) buckets * series.width);
+            Histogram bucket = series.histograms[index];
+            if (bucket != null) {
+                if (histogram == null) {
+                    histogram = new Histogram(TimeSeries.BUCKET_DIGITS);
+                }
+                histogram.merge(bucket);
+            }
+        }
+
+        protected void computeLatency() {
+            latency = histogram == null ? 0 : histogram.getValueAtPercentile(LATENCY_PERCENTILE);
+        }
+
+        public double getUsers() {
+            return users;
+        }
+
+        public String users() {
+            return format(users, "%.1f");
+        }
+
+        public int getBuckets() {
+            return buckets;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public String throughput() {
+            return format(throughput, "%.1f");
+        }
+
+        public String fittedThroughput() {
+            return format(fitted, "%.1f");
+        }
+
+        /**
+         * Returns the p95 response time of the level.
+         */
+        public long getLatency() {
+            return latency;
+        }
+    }
+}
@@ -19,6 +19,7 @@ package org.nuxeo.tools.gatling.report;
 import static java.lang.Math.max;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,14 +30,29 @@ public class SimulationContext {
 
     protected final Float apdexT;
 
+    protected final StatsConfig config;
+
     protected final String filePath;
 
     protected final RequestStat simStat;
 
     protected final Map<String, RequestStat> reqStats = new HashMap<>();
 
+    protected final Map<String, Integer> requestIds = new HashMap<>();
+
+    protected RequestStat[] requestStats = new RequestStat[16];
+
+    protected final Map<String, Integer> groupIds = new HashMap<>();
+
+    protected GroupStat[] groupStats = new GroupStat[4];
+
     protected final Map<String, CountMax> users = new HashMap<>();
 
+    // null when disabled
+    protected final TimeSeries timeSeries;
+
+    protected SaturationCurve saturation;
+
     protected String simulationName;
 
     protected String scenarioName;
@@ -47,10 +63,29 @@ public class SimulationContext {
 
     protected long start;
 
+    // a chunk of a log parsed in parallel, users may end in the chunk without being started in it
+    protected boolean partial;
+
+    // the requests are merged into the _all stat once
+    protected boolean merged;
+
+    // the most frequent errors not related to a request, like the ERROR records
+    protected List<TopErrors.ErrorCount> errors = new ArrayList<>();
+
     public SimulationContext(String filePath, Float apdexT) {
+        this(filePath, apdexT, new StatsConfig());
+    }
+
+    /**
+     * @since 7.0
+     */
+    public SimulationContext(String filePath, Float apdexT, StatsConfig config) {
         this.filePath = filePath;
-        this.simStat = new RequestStat(ALL_REQUESTS, ALL_REQUESTS, ALL_REQUESTS, 0, apdexT);
+        this.simStat = new RequestStat(ALL_REQUESTS, ALL_REQUESTS, ALL_REQUESTS, 0, apdexT, config);
         this.apdexT = apdexT;
+        this.config = config;
+        timeSeries = config.getTimeBucket() > 0 ? new TimeSeries(config.getTimeBucket(), config.getPercentiles())
+                : null;
     }
 
     public String getSimulationName() {
@@ -60,6 +95,9 @@ public class SimulationContext {
     public void setSimulationName(String name) {
         this.simulationName = name;
         simStat.setSimulationName(name);
+        if (timeSeries != null) {
+            timeSeries.setSimulationName(name);
+        }
     }
 
     public RequestStat getSimStat() {
@@ -72,18 +110,199 @@ public class SimulationContext {
         return ret;
     }
 
+    /**
+     * Returns the group stats sorted like the requests.
+     *
+     * @since 7.0
+     */
+    public List<GroupStat> getGroups() {
+        List<GroupStat> ret = new ArrayList<>(groupIds.size());
+        for (int i = 0; i < groupIds.size(); i++) {
+            ret.add(groupStats[i]);
+        }
+        ret.sort((a, b) -> (int) (1000 * (a.avg - b.avg)));
+        return ret;
+    }
+
+    /**
+     * Returns the most frequent errors not related to a request, available once the stats are computed.
+     *
+     * @since 7.0
+     */
+    public List<TopErrors.ErrorCount> getErrors() {
+        return errors;
+    }
+
+    public boolean hasGroups() {
+        return !groupIds.isEmpty();
+    }
+
+    /**
+     * Returns the requests aggregated per time bucket, null when disabled.
+     *
+     * @since 7.0
+     */
+    public TimeSeries getTimeSeries() {
+        return timeSeries;
+    }
+
+    public boolean hasTimeSeries() {
+        return timeSeries != null && timeSeries.size() > 0;
+    }
+
+    /**
+     * Returns the throughput and response time by number of active users, null without time series.
+     *
+     * @since 7.0
+     */
+    public SaturationCurve getSaturation() {
+        return saturation;
+    }
+
+    public boolean hasSaturation() {
+        return saturation != null && saturation.hasLevels();
+    }
+
     public void addRequest(String scenario, String requestName, long start, long end, boolean success) {
-        RequestStat request = reqStats.computeIfAbsent(requestName,
-                n -> new RequestStat(simulationName, scenario, n, this.start, apdexT));
-        request.add(start, end, success);
-        simStat.add(start, end, success);
+        addRequest(getRequestId(scenario, requestName), start, end, success);
+    }
+
+    /**
+     * Adds a request sample using the id returned by {@link #getRequestId(String, String)}.
+     *
+     * @since 7.0
+     */
+    public void addRequest(int requestId, long start, long end, boolean success) {
+        requestStats[requestId].add(start, end, success);
+        if (timeSeries != null) {
+            timeSeries.add(start, end, success);
+        }
+    }
+
+    /**
+     * Counts the message of a failed request.
+     *
+     * @since 7.0
+     */
+    public void addError(int requestId, String message) {
+        requestStats[requestId].addError(message);
+    }
+
+    /**
+     * Counts the message of an error not related to a request.
+     *
+     * @since 7.0
+     */
+    public void addError(String message) {
+        simStat.addError(message);
+    }
+
+    /**
+     * Returns the dense id of a request, creating its stat on first use. Parsers are expected to resolve a request
+     * name once and then use its id.
+     *
+     * @since 7.0
+     */
+    public int getRequestId(String scenario, String requestName) {
+        Integer ret = requestIds.get(requestName);
+        if (ret != null) {
+            return ret;
+        }
+        return addRequestStat(new RequestStat(simulationName, scenario, requestName, this.start, apdexT, config));
+    }
+
+    protected int addRequestStat(RequestStat stat) {
+        int ret = requestIds.size();
+        if (ret == requestStats.length) {
+            requestStats = Arrays.copyOf(requestStats, ret * 2);
+        }
+        requestStats[ret] = stat;
+        requestIds.put(stat.request, ret);
+        reqStats.put(stat.request, stat);
+        return ret;
+    }
+
+    /**
+     * Returns the dense id of a group, creating its stat on first use.
+     *
+     * @since 7.0
+     */
+    public int getGroupId(String scenario, String groupName) {
+        Integer ret = groupIds.get(groupName);
+        if (ret != null) {
+            return ret;
+        }
+        return addGroupStat(new GroupStat(simulationName, scenario, groupName, this.start, apdexT, config));
+    }
+
+    protected int addGroupStat(GroupStat stat) {
+        int ret = groupIds.size();
+        if (ret == groupStats.length) {
+            groupStats = Arrays.copyOf(groupStats, ret * 2);
+        }
+        groupStats[ret] = stat;
+        groupIds.put(stat.request, ret);
+        return ret;
+    }
+
+    /**
+     * Adds a group sample using the id returned by {@link #getGroupId(String, String)}.
+     *
+     * @since 7.0
+     */
+    public void addGroup(int groupId, long start, long end, long cumulated, boolean success) {
+        groupStats[groupId].add(start, end, cumulated, success);
+    }
+
+    /**
+     * Merges the aggregates of a context that parsed the records following the ones of this context.
+     *
+     * @since 7.0
+     */
+    public void merge(SimulationContext other) {
+        simStat.merge(other.simStat);
+        if (timeSeries != null) {
+            timeSeries.merge(other.timeSeries);
+        }
+        for (int i = 0; i < other.requestIds.size(); i++) {
+            RequestStat stat = other.requestStats[i];
+            RequestStat request = reqStats.get(stat.request);
+            if (request == null) {
+                addRequestStat(stat);
+            } else {
+                request.merge(stat);
+            }
+        }
+        for (int i = 0; i < other.groupIds.size(); i++) {
+            GroupStat stat = other.groupStats[i];
+            Integer group = groupIds.get(stat.request);
+            if (group == null) {
+                addGroupStat(stat);
+            } else {
+                groupStats[group].merge(stat);
+            }
+        }
+        other.users.forEach((scenario, count) -> users.computeIfAbsent(scenario, k -> new CountMax()).merge(count));
     }
 
     public void computeStat() {
         maxUsers = users.values().stream().mapToInt(CountMax::getMax).sum();
+        // the _all stat only holds the errors not related to a request until the requests are merged into it
+        if (!merged) {
+            errors = simStat.getTopErrors();
+            simStat.mergeSorted(Arrays.asList(requestStats).subList(0, requestIds.size()));
+            merged = true;
+        }
         simStat.computeStat(maxUsers);
         reqStats.values()
                 .forEach(request -> request.computeStat(simStat.duration, users.get(request.scenario).maximum));
+        for (int i = 0; i < groupIds.size(); i++) {
+            CountMax count = users.get(groupStats[i].scenario);
+            groupStats[i].computeStat(simStat.duration, count == null ? 0 : count.maximum);
+        }
+        if (timeSeries != null) {
+            saturation = new SaturationCurve(timeSeries);
+        }
     }
 
     public void setScenarioName(String name) {
@@ -94,6 +313,9 @@ public class SimulationContext {
     public void setStart(long start) {
         this.start = start;
         simStat.setStart(start);
+        if (timeSeries != null) {
+            timeSeries.setOrigin(start);
+        }
     }
 
     public SimulationContext setScripts(List<String> scripts) {
@@ -113,14 +335,49 @@ public class SimulationContext {
     }
 
     public void addUser(String scenario) {
+        addUser(scenario, 0);
+    }
+
+    /**
+     * Starts a user, also counted in the active users of its time bucket when the timestamp is known.
+     *
+     * @since 7.0
+     */
+    public void addUser(String scenario, long timestamp) {
         CountMax count = users.computeIfAbsent(scenario, k -> new CountMax());
         count.incr();
+        if (timeSeries != null && timestamp > 0) {
+            // users of an unknown scenario are still active users of the simulation
+            timeSeries.addUser(scenario == null ? ALL_REQUESTS : scenario, timestamp);
+        }
+    }
+
+    /**
+     * Marks a context holding a chunk of a log, to be merged with the previous chunks.
+     *
+     * @since 7.0
+     */
+    public SimulationContext setPartial(boolean partial) {
+        this.partial = partial;
+        return this;
     }
 
     public void endUser(String scenario) {
-        CountMax count = users.get(scenario);
+        endUser(scenario, 0);
+    }
+
+    /**
+     * Ends a user, it stays active until the end of the time bucket of the timestamp.
+     *
+     * @since 7.0
+     */
+    public void endUser(String scenario, long timestamp) {
+        CountMax count = partial ? users.computeIfAbsent(scenario, k -> new CountMax()) : users.get(scenario);
         if (count != null) {
             count.decr();
+            if (timeSeries != null && timestamp > 0) {
+                timeSeries.endUser(scenario == null ? ALL_REQUESTS : scenario, timestamp);
+            }
         }
     }
 
@@ -136,6 +393,11 @@ public class SimulationContext {
             current -= 1;
         }
 
+        public void merge(CountMax next) {
+            maximum = max(maximum, current + next.maximum);
+            current += next.current;
+        }
+
         public int getMax() {
             return maximum;
         }
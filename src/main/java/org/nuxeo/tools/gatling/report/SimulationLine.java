@@ -0,0 +1,194 @@
+/*
+ * (C) Copyright 2026 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package org.nuxeo.tools.gatling.report;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A line of a text simulation log. Fields are kept as offsets into the reader buffer, the line is reused by the
+ * reader so a field value must be copied with {@link #get(int)} or {@link #intern(int)} to be kept.
+ *
+ * @since 7.0
+ */
+public class SimulationLine {
+
+    protected final StringPool pool;
+
+    protected byte[] buffer;
+
+    protected int[] starts = new int[16];
+
+    protected int[] ends = new int[16];
+
+    protected int size;
+
+    public SimulationLine(StringPool pool) {
+        this.pool = pool;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the field value, a pooled string is returned when the value is already known, otherwise a new string
+     * is decoded.
+     */
+    public String get(int index) {
+        checkIndex(index);
+        String ret = pool.get(buffer, starts[index], ends[index]);
+        if (ret != null) {
+            return ret;
+        }
+        return new String(buffer, starts[index], ends[index] - starts[index], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the field value from the pool, adding it when missing. To use for values with a low cardinality like
+     * request or scenario names.
+     */
+    public String intern(int index) {
+        checkIndex(index);
+        return pool.intern(buffer, starts[index], ends[index]);
+    }
+
+    /**
+     * Returns the field value from the pool, adding it while the pool is not full.
+     */
+    public String cache(int index) {
+        checkIndex(index);
+        return pool.cache(buffer, starts[index], ends[index]);
+    }
+
+    /**
+     * Returns the pool symbol id of the field value, adding it when missing.
+     */
+    public int symbol(int index) {
+        checkIndex(index);
+        return pool.symbol(buffer, starts[index], ends[index]);
+    }
+
+    /**
+     * Decodes a decimal field, like an epoch millis timestamp, without creating a string.
+     */
+    public long getLong(int index) {
+        checkIndex(index);
+        int start = starts[index];
+        int end = ends[index];
+        boolean negative = start < end && buffer[start] == '-';
+        int i = negative ? start + 1 : start;
+        if (i == end || end - i > 18) {
+            return Long.parseLong(get(index));
+        }
+        long ret = 0;
+        for (; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \"" + get(index) + "\"");
+            }
+            ret = ret * 10 + digit;
+        }
+        return negative ? -ret : ret;
+    }
+
+    /**
+     * Decodes a decimal field like {@link #getLong(int)}, returns the default value when the field is not a number.
+     */
+    public long getLong(int index, long defaultValue) {
+        checkIndex(index);
+        int start = starts[index];
+        int end = ends[index];
+        if (start == end || end - start > 18) {
+            return defaultValue;
+        }
+        long ret = 0;
+        for (int i = start; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return defaultValue;
+            }
+            ret = ret * 10 + digit;
+        }
+        return ret;
+    }
+
+    /**
+     * Compares the field with an ASCII value without decoding it.
+     */
+    public boolean is(int index, String value) {
+        checkIndex(index);
+        int start = starts[index];
+        int len = ends[index] - start;
+        if (len != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < len; i++) {
+            if (buffer[start + i] != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public List<String> toList() {
+        List<String> ret = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ret.add(get(i));
+        }
+        return ret;
+    }
+
+    protected void reset(byte[] buffer) {
+        this.buffer = buffer;
+        size = 0;
+    }
+
+    protected void addField(int start, int end) {
+        if (size == starts.length) {
+            int[] newStarts = new int[size * 2];
+            int[] newEnds = new int[size * 2];
+            System.arraycopy(starts, 0, newStarts, 0, size);
+            System.arraycopy(ends, 0, newEnds, 0, size);
+            starts = newStarts;
+            ends = newEnds;
+        }
+        // trim whitespace like the previous csv parser
+        while (start < end && (buffer[start] & 0xff) <= ' ') {
+            start++;
+        }
+        while (end > start && (buffer[end - 1] & 0xff) <= ' ') {
+            end--;
+        }
+        starts[size] = start;
+        ends[size] = end;
+        size++;
+    }
+
+    protected void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return toList().toString();
+    }
+}
@@ -16,11 +16,18 @@ package org.nuxeo.tools.gatling.report;
  *     Benoit Delbosc
  */
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-public abstract class SimulationParser {
+public abstract class SimulationParser implements Closeable {
 
     protected static final String OK = "OK";
 
@@ -34,10 +41,26 @@ public abstract class SimulationParser {
 
     protected static final String END = "END";
 
+    protected static final String ERROR = "ERROR";
+
+    protected static final String GROUP = "GROUP";
+
+    // user id of a record where the id is not a number, it is never tracked
+    protected static final long UNKNOWN_USER = -1;
+
+    protected static final long MIN_CHUNK_SIZE = 64 * 1024;
+
     protected final File file;
 
     protected final Float apdexT;
 
+    protected int threads = 1;
+
+    protected StatsConfig config = new StatsConfig();
+
+    // reader opened by the factory on the header line, used by the first parse
+    protected SimulationReader reader;
+
     public SimulationParser(File file, Float apdexT) {
         this.file = file;
         this.apdexT = apdexT;
@@ -48,74 +71,439 @@ public abstract class SimulationParser {
         this.apdexT = null;
     }
 
+    /**
+     * Parses the file using up to {@code threads} workers, only uncompressed text files are parsed in parallel, a
+     * compressed file is inflated by a dedicated thread.
+     *
+     * @since 7.0
+     */
+    public SimulationParser setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+        return this;
+    }
+
+    /**
+     * Sets how the request statistics are computed.
+     *
+     * @since 7.0
+     */
+    public SimulationParser setStatsConfig(StatsConfig config) {
+        this.config = config;
+        return this;
+    }
+
+    /**
+     * Continues from a reader already opened on the header line, to avoid opening the file again.
+     *
+     * @since 7.0
+     */
+    protected SimulationParser setReader(SimulationReader reader) {
+        this.reader = reader;
+        return this;
+    }
+
     public SimulationContext parse() throws IOException {
-        SimulationContext ret = new SimulationContext(file.getAbsolutePath(), apdexT);
-        try (SimulationReader reader = new SimulationReader(file)) {
-            List<String> line;
-            String name;
-            String scenario;
-            long start, end;
-            boolean success;
-            List<String> header = reader.readNext();
-            checkLine(header);
-
-            ret.setSimulationName(getSimulationName(header));
-            ret.setScenarioName(getScenario(header));
-            ret.setStart(Long.parseLong(getSimulationStart(header)));
+        if (threads > 1 && !Utils.isCompressed(file)) {
+            closeReader();
+            return parseParallel();
+        }
+        SimulationContext ret = newContext();
+        try (SimulationReader reader = openReader()) {
+            parseHeader(reader.readNext(), ret);
+            parseRecords(reader, ret);
+        }
+        ret.computeStat();
+        return ret;
+    }
 
-            while ((line = reader.readNext()) != null) {
-                scenario = getScenario(line);
+    /**
+     * Returns the reader opened by the factory or opens the file. The file is opened again when parsing with more
+     * than one thread, to inflate it on a dedicated thread.
+     *
+     * @since 7.0
+     */
+    protected SimulationReader openReader() throws IOException {
+        if (reader != null && threads == 1) {
+            SimulationReader ret = reader;
+            reader = null;
+            return ret;
+        }
+        closeReader();
+        return new SimulationReader(Utils.getInputStreamFor(file, threads > 1));
+    }
 
-                switch (getType(line)) {
-                    case RUN:
-                        break;
-                    case REQUEST:
-                        name = getRequestName(line);
-                        start = getRequestStart(line);
-                        end = getRequestEnd(line);
-                        success = getRequestSuccess(line);
-                        ret.addRequest(scenario, name, start, end, success);
-                        break;
-                    case USER:
-                        switch (getUserType(line)) {
-                            case START:
-                                ret.addUser(scenario);
-                                break;
-                            case END:
-                                ret.endUser(scenario);
-                                break;
+    protected void closeReader() throws IOException {
+        if (reader != null) {
+            reader.close();
+            reader = null;
+        }
+    }
+
+    /**
+     * Releases the reader opened by the factory when the parser is not used to parse.
+     *
+     * @since 7.0
+     */
+    @Override
+    public void close() throws IOException {
+        closeReader();
+    }
+
+    protected void parseHeader(SimulationLine header, SimulationContext context) {
+        checkLine(header);
+        context.setSimulationName(getSimulationName(header));
+        context.setScenarioName(getScenario(header));
+        context.setStart(Long.parseLong(getSimulationStart(header)));
+    }
+
+    protected void parseRecords(SimulationReader reader, SimulationContext context) throws IOException {
+        reader.setSchema(getSchema());
+        // request ids of the context indexed by the pool symbol of the request name
+        int[] requestIds = new int[64];
+        int[] groupIds = new int[16];
+        SimulationLine line;
+        String scenario, message;
+        int symbol, requestId, groupId;
+        long start, end;
+        boolean success;
+        while ((line = reader.readNext()) != null) {
+            // the scenario is resolved only by the records using it, the column may hold the message of an ERROR
+            switch (getType(line)) {
+                case RUN:
+                    break;
+                case REQUEST:
+                    symbol = getRequestSymbol(line);
+                    if (symbol >= requestIds.length) {
+                        requestIds = Arrays.copyOf(requestIds, Math.max(symbol + 1, requestIds.length * 2));
+                    }
+                    requestId = requestIds[symbol] - 1;
+                    if (requestId < 0) {
+                        requestId = context.getRequestId(getScenario(line), getRequestName(line));
+                        requestIds[symbol] = requestId + 1;
+                    }
+                    start = getRequestStart(line);
+                    end = getRequestEnd(line);
+                    success = getRequestSuccess(line);
+                    context.addRequest(requestId, start, end, success);
+                    if (!success) {
+                        message = getRequestMessage(line);
+                        if (message != null && !message.isEmpty()) {
+                            context.addError(requestId, message);
                         }
+                    }
+                    break;
+                case GROUP:
+                    if (getSchema().groupName < 0) {
                         break;
+                    }
+                    symbol = getGroupSymbol(line);
+                    if (symbol >= groupIds.length) {
+                        groupIds = Arrays.copyOf(groupIds, Math.max(symbol + 1, groupIds.length * 2));
+                    }
+                    groupId = groupIds[symbol] - 1;
+                    if (groupId < 0) {
+                        groupId = context.getGroupId(getScenario(line), getGroupName(line));
+                        groupIds[symbol] = groupId + 1;
+                    }
+                    context.addGroup(groupId, getGroupStart(line), getGroupEnd(line), getGroupCumulated(line),
+                            getGroupSuccess(line));
+                    break;
+                case ERROR:
+                    message = getErrorMessage(line);
+                    if (message != null && !message.isEmpty()) {
+                        context.addError(message);
+                    }
+                    break;
+                case USER:
+                    scenario = getScenario(line);
+                    switch (getUserType(line)) {
+                        case START:
+                            context.addUser(scenario, getUserStart(line));
+                            break;
+                        case END:
+                            context.endUser(scenario, getUserEnd(line));
+                            break;
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Splits the file into line aligned chunks parsed concurrently. A first pass tracks only the USER records so each
+     * worker starts with the user to scenario mapping of the previous chunks, then each worker aggregates its chunk
+     * into its own context, contexts are merged in the file order.
+     */
+    protected SimulationContext parseParallel() throws IOException {
+        List<Long> offsets = getChunkOffsets(file, threads);
+        int chunks = offsets.size() - 1;
+        SimulationContext ret = newContext();
+        try (SimulationReader reader = new SimulationReader(file)) {
+            parseHeader(reader.readNext(), ret);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, chunks));
+        try {
+            List<Future<SimulationParser>> tracking = new ArrayList<>(chunks);
+            for (int i = 0; i < chunks; i++) {
+                long chunkStart = offsets.get(i), chunkEnd = offsets.get(i + 1);
+                SimulationParser tracker = newWorker();
+                tracking.add(executor.submit(() -> tracker.trackUsers(chunkStart, chunkEnd)));
+            }
+            List<SimulationParser> trackers = waitFor(tracking);
+
+            List<SimulationParser> workers = new ArrayList<>(chunks);
+            for (int i = 0; i < chunks; i++) {
+                SimulationParser worker = newWorker();
+                if (i > 0) {
+                    worker.inheritUsers(workers.get(i - 1));
+                    worker.inheritUsers(trackers.get(i - 1));
                 }
+                workers.add(worker);
+            }
+            List<Future<SimulationContext>> parsing = new ArrayList<>(chunks);
+            for (int i = 0; i < chunks; i++) {
+                long chunkStart = offsets.get(i), chunkEnd = offsets.get(i + 1);
+                SimulationParser worker = workers.get(i);
+                boolean first = i == 0;
+                parsing.add(executor.submit(() -> worker.parseChunk(ret, chunkStart, chunkEnd, first)));
+            }
+            for (SimulationContext context : waitFor(parsing)) {
+                ret.merge(context);
             }
+        } finally {
+            executor.shutdownNow();
         }
         ret.computeStat();
         return ret;
     }
 
-    protected void checkLine(List<String> line) {
-        if (line.size() <= 2) {
+    protected SimulationContext parseChunk(SimulationContext header, long chunkStart, long chunkEnd, boolean first)
+            throws IOException {
+        SimulationContext ret = newChunkContext(header);
+        try (SimulationReader reader = new SimulationReader(new MappedFileInputStream(file, chunkStart, chunkEnd))) {
+            if (first) {
+                reader.readNext();
+            }
+            parseRecords(reader, ret);
+        }
+        return ret;
+    }
+
+    protected SimulationContext newContext() {
+        return new SimulationContext(file.getAbsolutePath(), apdexT, config);
+    }
+
+    protected SimulationContext newChunkContext(SimulationContext header) {
+        SimulationContext ret = newContext().setPartial(true);
+        ret.setSimulationName(header.getSimulationName());
+        ret.setStart(header.start);
+        return ret;
+    }
+
+    protected SimulationParser trackUsers(long chunkStart, long chunkEnd) throws IOException {
+        try (SimulationReader reader = new SimulationReader(new MappedFileInputStream(file, chunkStart, chunkEnd))) {
+            reader.setSchema(getSchema());
+            SimulationLine line;
+            while ((line = reader.readNext()) != null) {
+                if (USER.equals(getType(line))) {
+                    getScenario(line);
+                    getUserType(line);
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Applies the user to scenario mapping tracked by another parser on top of the current one, used when parsing in
+     * parallel. Parsers that resolve the scenario of a request from a previous USER record must override this.
+     *
+     * @since 7.0
+     */
+    protected void inheritUsers(SimulationParser previous) {
+        // nothing to inherit by default
+    }
+
+    protected SimulationParser newWorker() {
+        try {
+            return getClass().getConstructor(File.class, Float.class).newInstance(file, apdexT).setStatsConfig(config);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Can not create a parser worker for " + getClass().getName(), e);
+        }
+    }
+
+    protected static List<Long> getChunkOffsets(File file, int chunks) throws IOException {
+        long length = file.length();
+        long chunkSize = Math.max(MIN_CHUNK_SIZE, length / chunks + 1);
+        List<Long> ret = new ArrayList<>();
+        ret.add(0L);
+        try (MappedFileInputStream input = new MappedFileInputStream(file)) {
+            long offset = chunkSize;
+            while (offset < length) {
+                input.skip(offset - input.getPosition());
+                int b;
+                while ((b = input.read()) != -1 && b != '\n') {
+                    // search the end of the line
+                }
+                offset = input.getPosition();
+                if (offset >= length) {
+                    break;
+                }
+                ret.add(offset);
+                offset += chunkSize;
+            }
+        }
+        ret.add(length);
+        return ret;
+    }
+
+    protected <T> List<T> waitFor(List<Future<T>> futures) throws IOException {
+        List<T> ret = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                ret.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing " + file.getAbsolutePath(), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+        return ret;
+    }
+
+    protected void checkLine(SimulationLine line) {
+        if (line == null || line.size() <= 2) {
             invalidFile();
         }
     }
 
-    protected abstract String getSimulationName(List<String> line);
+    /**
+     * Returns the columns of the simulation format.
+     *
+     * @since 7.0
+     */
+    protected abstract ColumnSchema getSchema();
+
+    protected String getSimulationName(SimulationLine line) {
+        return line.get(getSchema().simulationName);
+    }
+
+    protected String getSimulationStart(SimulationLine line) {
+        return line.get(getSchema().simulationStart);
+    }
+
+    protected String getScenario(SimulationLine line) {
+        return line.intern(getSchema().scenario);
+    }
+
+    protected String getType(SimulationLine line) {
+        return line.get(getSchema().type);
+    }
+
+    protected String getUserType(SimulationLine line) {
+        return line.get(getSchema().userType);
+    }
+
+    /**
+     * Returns the timestamp of a USER START record, 0 when unknown.
+     *
+     * @since 7.0
+     */
+    protected long getUserStart(SimulationLine line) {
+        int start = getSchema().userStart;
+        return start >= 0 && start < line.size() ? line.getLong(start, 0) : 0;
+    }
 
-    protected abstract String getSimulationStart(List<String> line);
+    /**
+     * Returns the timestamp of a USER END record, the only timestamp of the record when it has no end column.
+     *
+     * @since 7.0
+     */
+    protected long getUserEnd(SimulationLine line) {
+        int end = getSchema().userEnd;
+        return end >= 0 && end < line.size() ? line.getLong(end, 0) : getUserStart(line);
+    }
 
-    protected abstract String getScenario(List<String> line);
+    protected String getRequestName(SimulationLine line) {
+        return line.intern(getSchema().name);
+    }
 
-    protected abstract String getType(List<String> line);
+    /**
+     * Returns the message of a KO request or null when the format has no message.
+     *
+     * @since 7.0
+     */
+    protected String getRequestMessage(SimulationLine line) {
+        int message = getSchema().message;
+        return message >= 0 && message < line.size() ? line.cache(message) : null;
+    }
 
-    protected abstract String getUserType(List<String> line);
+    /**
+     * Returns the message of an ERROR record or null when the format has no error record.
+     *
+     * @since 7.0
+     */
+    protected String getErrorMessage(SimulationLine line) {
+        int error = getSchema().error;
+        return error >= 0 && error < line.size() ? line.cache(error) : null;
+    }
 
-    protected abstract String getRequestName(List<String> line);
+    /**
+     * Returns the pool symbol of the request name, to resolve the request id only once per name.
+     *
+     * @since 7.0
+     */
+    protected int getRequestSymbol(SimulationLine line) {
+        return line.symbol(getSchema().name);
+    }
 
-    protected abstract Long getRequestStart(List<String> line);
+    protected long getRequestStart(SimulationLine line) {
+        return line.getLong(getSchema().start);
+    }
 
-    protected abstract Long getRequestEnd(List<String> line);
+    protected long getRequestEnd(SimulationLine line) {
+        return line.getLong(getSchema().end);
+    }
 
-    protected abstract boolean getRequestSuccess(List<String> line);
+    protected boolean getRequestSuccess(SimulationLine line) {
+        return line.is(getSchema().status, OK);
+    }
+
+    /**
+     * Returns the comma separated hierarchy of a GROUP record.
+     *
+     * @since 7.0
+     */
+    protected String getGroupName(SimulationLine line) {
+        return line.intern(getSchema().groupName);
+    }
+
+    protected int getGroupSymbol(SimulationLine line) {
+        return line.symbol(getSchema().groupName);
+    }
+
+    protected long getGroupStart(SimulationLine line) {
+        return line.getLong(getSchema().groupStart);
+    }
+
+    protected long getGroupEnd(SimulationLine line) {
+        return line.getLong(getSchema().groupEnd);
+    }
+
+    protected long getGroupCumulated(SimulationLine line) {
+        return line.getLong(getSchema().groupCumulated);
+    }
+
+    protected boolean getGroupSuccess(SimulationLine line) {
+        return line.is(getSchema().groupStatus, OK);
+    }
 
     protected SimulationContext invalidFile() {
         throw new IllegalArgumentException(String.format(
@@ -16,7 +16,11 @@ package org.nuxeo.tools.gatling.report;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Parser for binary format simulation log files (Gatling 3.14.3+)
@@ -30,8 +34,17 @@ public class SimulationParserBinary extends SimulationParser {
     private static final byte GROUP_HEADER = 3;
     private static final byte ERROR_HEADER = 4;
 
+    // files from this size are read through memory mapped windows
+    protected static final long MIN_MAPPED_SIZE = 1024 * 1024;
+
     private String[] scenarios;
     private long runStart;
+    // offsets of the cached string definitions, shared by the workers of a parallel parse
+    private long[] stringOffsets;
+    // request ids of the context indexed by the string cache index of the request name
+    private int[] requestIds = new int[64];
+    // group ids of the context indexed by the string cache index of a single level group name
+    private int[] groupIds = new int[16];
 
     public SimulationParserBinary(File file, Float apdexT) {
         super(file, apdexT);
@@ -43,62 +56,163 @@ public class SimulationParserBinary extends SimulationParser {
 
     @Override
     public SimulationContext parse() throws IOException {
-        SimulationContext context = new SimulationContext(file.getAbsolutePath(), apdexT);
+        if (threads > 1 && file.length() >= MIN_MAPPED_SIZE) {
+            return parseParallel();
+        }
+        SimulationContext context = newContext();
+
+        try (BinarySimulationReader reader = openBinaryReader()) {
+            parseRunHeader(reader, context);
+            parseRecords(reader, context);
+        }
+
+        context.computeStat();
+        return context;
+    }
+
+    protected void parseRunHeader(BinarySimulationReader reader, SimulationContext context) throws IOException {
+        // Skip binary format marker (4 zero bytes)
+        reader.skipInt();
+
+        // The next byte after the marker could be:
+        // - The version string length (if no explicit Run header)
+        // - The Run record header (0)
+        // In the actual binary file, the version comes immediately after the marker
+
+        // Read version length byte
+        byte versionLengthByte = reader.readByte();
+        int versionLength = versionLengthByte & 0xFF;
 
-        try (BinarySimulationReader reader = new BinarySimulationReader(file)) {
-            // Skip binary format marker (4 zero bytes)
-            reader.skipInt();
+        // Read version string (no coder byte)
+        byte[] versionBytes = new byte[versionLength];
+        for (int i = 0; i < versionLength; i++) {
+            versionBytes[i] = reader.readByte();
+        }
+        String version = new String(versionBytes);
 
-            // The next byte after the marker could be:
-            // - The version string length (if no explicit Run header)
-            // - The Run record header (0)
-            // In the actual binary file, the version comes immediately after the marker
+        // Read the RUN record header byte (should be 0)
+        byte runHeader = reader.readByte();
+        if (runHeader != RUN_HEADER) {
+            throw new IOException("Expected RUN record header but got: " + runHeader);
+        }
 
-            // Read version length byte
-            byte versionLengthByte = reader.readByte();
-            int versionLength = versionLengthByte & 0xFF;
+        // Now parse the Run record using standard format (with coder bytes)
+        // The next bytes are the string length as a 4-byte int (00 00 00 49)
+        parseRunRecordAfterVersion(reader, context, version);
+    }
 
-            // Read version string (no coder byte)
-            byte[] versionBytes = new byte[versionLength];
-            for (int i = 0; i < versionLength; i++) {
-                versionBytes[i] = reader.readByte();
+    protected void parseRecords(BinarySimulationReader reader, SimulationContext context) throws IOException {
+        // Parse remaining records
+        while (reader.hasMore()) {
+            byte header = reader.readByte();
+            switch (header) {
+                case REQUEST_HEADER:
+                    parseRequestRecord(reader, context);
+                    break;
+                case USER_HEADER:
+                    parseUserRecord(reader, context);
+                    break;
+                case GROUP_HEADER:
+                    parseGroupRecord(reader, context);
+                    break;
+                case ERROR_HEADER:
+                    parseErrorRecord(reader, context);
+                    break;
+                default:
+                    throw new IOException("Unknown record header: " + header);
             }
-            String version = new String(versionBytes);
+        }
+    }
 
-            // Read the RUN record header byte (should be 0)
-            byte runHeader = reader.readByte();
-            if (runHeader != RUN_HEADER) {
-                throw new IOException("Expected RUN record header but got: " + runHeader);
+    /**
+     * Parses the records in parallel. Cached strings are defined once and referenced later, so a first pass skips
+     * all the records to index the chunk boundaries and the offsets of the cached string definitions. The chunks are
+     * then parsed concurrently, a string defined before a chunk is decoded from its offset.
+     *
+     * @since 7.0
+     */
+    protected SimulationContext parseParallel() throws IOException {
+        SimulationContext ret = newContext();
+        List<Long> offsets;
+        long[] stringOffsets;
+        try (MappedBinarySimulationReader reader = new MappedBinarySimulationReader(file)) {
+            parseRunHeader(reader, ret);
+            offsets = indexRecords(reader, Math.max(MIN_CHUNK_SIZE, file.length() / threads + 1));
+            stringOffsets = reader.getStringOffsets();
+        }
+        int chunks = offsets.size() - 1;
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, chunks)));
+        try {
+            List<Future<SimulationContext>> parsing = new ArrayList<>(chunks);
+            for (int i = 0; i < chunks; i++) {
+                long chunkStart = offsets.get(i), chunkEnd = offsets.get(i + 1);
+                SimulationParserBinary worker = (SimulationParserBinary) newWorker();
+                worker.scenarios = scenarios;
+                worker.runStart = runStart;
+                worker.stringOffsets = stringOffsets;
+                parsing.add(executor.submit(() -> worker.parseChunk(ret, chunkStart, chunkEnd, false)));
+            }
+            for (SimulationContext context : waitFor(parsing)) {
+                ret.merge(context);
             }
+        } finally {
+            executor.shutdownNow();
+        }
+        ret.computeStat();
+        return ret;
+    }
 
-            // Now parse the Run record using standard format (with coder bytes)
-            // The next bytes are the string length as a 4-byte int (00 00 00 49)
-            parseRunRecordAfterVersion(reader, context, version);
-
-            // Parse remaining records
-            while (reader.hasMore()) {
-                byte header = reader.readByte();
-                switch (header) {
-                    case REQUEST_HEADER:
-                        parseRequestRecord(reader, context);
-                        break;
-                    case USER_HEADER:
-                        parseUserRecord(reader, context);
-                        break;
-                    case GROUP_HEADER:
-                        parseGroupRecord(reader, context);
-                        break;
-                    case ERROR_HEADER:
-                        parseErrorRecord(reader, context);
-                        break;
-                    default:
-                        throw new IOException("Unknown record header: " + header);
-                }
+    /**
+     * Skips the records to return the offsets of the records starting the chunks, followed by the end offset.
+     */
+    protected List<Long> indexRecords(MappedBinarySimulationReader reader, long chunkSize) throws IOException {
+        List<Long> ret = new ArrayList<>();
+        long next = reader.getPosition();
+        while (reader.hasMore()) {
+            long position = reader.getPosition();
+            if (position >= next) {
+                ret.add(position);
+                next = position + chunkSize;
+            }
+            byte header = reader.readByte();
+            switch (header) {
+                case REQUEST_HEADER:
+                    skipRequestRecord(reader);
+                    break;
+                case USER_HEADER:
+                    skipUserRecord(reader);
+                    break;
+                case GROUP_HEADER:
+                    skipGroupRecord(reader);
+                    break;
+                case ERROR_HEADER:
+                    skipErrorRecord(reader);
+                    break;
+                default:
+                    throw new IOException("Unknown record header: " + header);
             }
         }
+        ret.add(reader.getPosition());
+        return ret;
+    }
 
-        context.computeStat();
-        return context;
+    @Override
+    protected SimulationContext parseChunk(SimulationContext header, long chunkStart, long chunkEnd, boolean first)
+            throws IOException {
+        SimulationContext ret = newChunkContext(header);
+        try (MappedBinarySimulationReader reader = new MappedBinarySimulationReader(file, chunkStart, chunkEnd,
+                MappedBinarySimulationReader.DEFAULT_WINDOW_SIZE)) {
+            reader.setStringOffsets(stringOffsets);
+            parseRecords(reader, ret);
+        }
+        return ret;
+    }
+
+    protected BinarySimulationReader openBinaryReader() throws IOException {
+        if (file.length() >= MIN_MAPPED_SIZE) {
+            return new MappedBinarySimulationReader(file);
+        }
+        return new BinarySimulationReader(file);
     }
 
     private void parseRunRecordWithoutCoder(BinarySimulationReader reader, SimulationContext context, String gatlingVersion) throws IOException {
@@ -259,22 +373,21 @@ public class SimulationParserBinary extends SimulationParser {
         long absoluteTimestamp = runStart + relativeTimestamp;
 
         if (isStart) {
-            context.addUser(scenario);
+            context.addUser(scenario, absoluteTimestamp);
         } else {
-            context.endUser(scenario);
+            context.endUser(scenario, absoluteTimestamp);
         }
     }
 
     private void parseRequestRecord(BinarySimulationReader reader, SimulationContext context) throws IOException {
-        // Groups
+        // Groups, not used: skipped without being decoded
         int groupCount = reader.readInt();
-        List<String> groups = new ArrayList<>();
         for (int i = 0; i < groupCount; i++) {
-            groups.add(reader.readCachedString());
+            reader.skipCachedString();
         }
 
-        // Request name
-        String requestName = reader.readCachedString();
+        // Request name, resolved to a request id once per cached string
+        int requestName = reader.readCachedStringId();
 
         // Start timestamp (relative to run start)
         int relativeStart = reader.readInt();
@@ -287,92 +400,181 @@ public class SimulationParserBinary extends SimulationParser {
         // Status (true = OK, false = KO)
         boolean success = reader.readBoolean();
 
-        // Message (usually empty for successful requests)
-        String message = reader.readCachedString();
+        int requestId = getRequestId(reader, context, requestName);
+        context.addRequest(requestId, startTimestamp, endTimestamp, success);
 
-        // For now, use the first scenario name if available
-        String scenario = scenarios != null && scenarios.length > 0 ? scenarios[0] : "default";
+        // Message, only used for a KO: skipped without being decoded otherwise
+        if (success) {
+            reader.skipCachedString();
+        } else {
+            String message = reader.getCachedString(reader.readCachedStringId());
+            if (!message.isEmpty()) {
+                context.addError(requestId, message);
+            }
+        }
+    }
+
+    private int getRequestId(BinarySimulationReader reader, SimulationContext context, int requestName)
+            throws IOException {
+        if (requestName >= requestIds.length) {
+            requestIds = Arrays.copyOf(requestIds, Math.max(requestName + 1, requestIds.length * 2));
+        }
+        int ret = requestIds[requestName] - 1;
+        if (ret < 0) {
+            ret = context.getRequestId(getDefaultScenario(), reader.getCachedString(requestName));
+            requestIds[requestName] = ret + 1;
+        }
+        return ret;
+    }
 
-        // Add to context
-        context.addRequest(scenario, requestName, startTimestamp, endTimestamp, success);
+    private String getDefaultScenario() {
+        // For now, use the first scenario name if available
+        return scenarios != null && scenarios.length > 0 ? scenarios[0] : "default";
     }
 
-    private void parseGroupRecord(BinarySimulationReader reader, SimulationContext context) throws IOException {
-        // Groups
+    private void skipRequestRecord(BinarySimulationReader reader) throws IOException {
         int groupCount = reader.readInt();
         for (int i = 0; i < groupCount; i++) {
             reader.skipCachedString();
         }
+        // Request name
+        reader.skipCachedString();
+        // Start, end and status
+        reader.skipInt();
+        reader.skipInt();
+        reader.skipByte();
+        // Message
+        reader.skipCachedString();
+    }
+
+    private void skipUserRecord(BinarySimulationReader reader) throws IOException {
+        // Scenario index, start/end flag and timestamp
+        reader.skipInt();
+        reader.skipByte();
+        reader.skipInt();
+    }
+
+    private void parseGroupRecord(BinarySimulationReader reader, SimulationContext context) throws IOException {
+        // Groups, the hierarchy from the outermost group to this one
+        int groupCount = reader.readInt();
+        int groupId;
+        if (groupCount == 1) {
+            groupId = getGroupId(reader, context, reader.readCachedStringId());
+        } else {
+            String[] hierarchy = new String[groupCount];
+            for (int i = 0; i < groupCount; i++) {
+                hierarchy[i] = reader.getCachedString(reader.readCachedStringId());
+            }
+            groupId = context.getGroupId(getDefaultScenario(), String.join(",", hierarchy));
+        }
 
         // Start timestamp (relative)
-        reader.skipInt();
+        long startTimestamp = runStart + reader.readInt();
 
         // End timestamp (relative)
-        reader.skipInt();
+        long endTimestamp = runStart + reader.readInt();
 
         // Cumulated response time
-        reader.skipInt();
+        int cumulated = reader.readInt();
 
         // Status
-        reader.skipByte();
+        boolean success = reader.readBoolean();
+
+        context.addGroup(groupId, startTimestamp, endTimestamp, cumulated, success);
+    }
+
+    private int getGroupId(BinarySimulationReader reader, SimulationContext context, int groupName)
+            throws IOException {
+        if (groupName >= groupIds.length) {
+            groupIds = Arrays.copyOf(groupIds, Math.max(groupName + 1, groupIds.length * 2));
+        }
+        int ret = groupIds[groupName] - 1;
+        if (ret < 0) {
+            ret = context.getGroupId(getDefaultScenario(), reader.getCachedString(groupName));
+            groupIds[groupName] = ret + 1;
+        }
+        return ret;
+    }
 
-        // Groups are not directly exposed in SimulationContext, so we skip them
+    private void skipGroupRecord(BinarySimulationReader reader) throws IOException {
+        int groupCount = reader.readInt();
+        for (int i = 0; i < groupCount; i++) {
+            reader.skipCachedString();
+        }
+        // Start, end, cumulated response time and status
+        reader.skipInt();
+        reader.skipInt();
+        reader.skipInt();
+        reader.skipByte();
     }
 
     private void parseErrorRecord(BinarySimulationReader reader, SimulationContext context) throws IOException {
         // Message
-        reader.skipCachedString();
+        String message = reader.readCachedString();
 
         // Timestamp (relative)
         reader.skipInt();
 
-        // Errors are not directly exposed in SimulationContext, so we skip them
+        if (!message.isEmpty()) {
+            context.addError(message);
+        }
+    }
+
+    private void skipErrorRecord(BinarySimulationReader reader) throws IOException {
+        // Message and timestamp
+        reader.skipCachedString();
+        reader.skipInt();
     }
 
     // These abstract methods from SimulationParser are not used in binary format
     // since we override the parse() method completely
     @Override
-    protected String getSimulationName(List<String> line) {
+    protected ColumnSchema getSchema() {
+        throw new UnsupportedOperationException("Binary format does not use line-based parsing");
+    }
+
+    @Override
+    protected String getSimulationName(SimulationLine line) {
         throw new UnsupportedOperationException("Binary format does not use line-based parsing");
     }
 
     @Override
-    protected String getSimulationStart(List<String> line) {
+    protected String getSimulationStart(SimulationLine line) {
         throw new UnsupportedOperationException("Binary format does not use line-based parsing");
     }
 
     @Override
-    protected String getScenario(List<String> line) {
+    protected String getScenario(SimulationLine line) {
         throw new UnsupportedOperationException("Binary format does not use line-based parsing");
     }
 
     @Override
-    protected String getType(List<String> line) {
+    protected String getType(SimulationLine line) {
         throw new UnsupportedOperationException("Binary format does not use line-based parsing");
     }
 
     @Override
-    protected String getUserType(List<String> line) {
+    protected String getUserType(SimulationLine line) {
         throw new UnsupportedOperationException("Binary format does not use line-based parsing");
     }
 
     @Override
-    protected String getRequestName(List<String> line) {
+    protected String getRequestName(SimulationLine line) {
         throw new UnsupportedOperationException("Binary format does not use line-based parsing");
     }
 
     @Override
-    protected Long getRequestStart(List<String> line) {
+    protected long getRequestStart(SimulationLine line) {
         throw new UnsupportedOperationException("Binary format does not use line-based parsing");
     }
 
     @Override
-    protected Long getRequestEnd(List<String> line) {
+    protected long getRequestEnd(SimulationLine line) {
         throw new UnsupportedOperationException("Binary format does not use line-based parsing");
     }
 
     @Override
-    protected boolean getRequestSuccess(List<String> line) {
+    protected boolean getRequestSuccess(SimulationLine line) {
         throw new UnsupportedOperationException("Binary format does not use line-based parsing");
     }
 }
\ No newline at end of file
@@ -17,13 +17,20 @@
 package org.nuxeo.tools.gatling.report;
 
 import java.io.File;
-import java.util.List;
 
 /**
  * Gatling 2.1.7 simulation format
  */
 public class SimulationParserV2 extends SimulationParser {
 
+    protected static final ColumnSchema SCHEMA = new ColumnSchema().run(1, 3)
+                                                                   .type(2)
+                                                                   .scenario(0)
+                                                                   .user(3, 4, 5)
+                                                                   .request(4, 6, 8, 9)
+                                                                   .message(10)
+                                                                   .group(3, 4, 5, 6, 7);
+
     public SimulationParserV2(File file, Float apdexT) {
         super(file, apdexT);
     }
@@ -32,39 +39,8 @@ public class SimulationParserV2 extends SimulationParser {
         super(file);
     }
 
-    protected String getSimulationName(List<String> line) {
-        return line.get(1);
-    }
-
-    protected String getSimulationStart(List<String> line) {
-        return line.get(3);
-    }
-
-    protected String getScenario(List<String> line) {
-        return line.get(0);
-    }
-
-    protected String getType(List<String> line) {
-        return line.get(2);
-    }
-
-    protected String getUserType(List<String> line) {
-        return line.get(3);
-    }
-
-    protected String getRequestName(List<String> line) {
-        return line.get(4);
-    }
-
-    protected Long getRequestStart(List<String> line) {
-        return Long.parseLong(line.get(6));
-    }
-
-    protected Long getRequestEnd(List<String> line) {
-        return Long.parseLong(line.get(8));
-    }
-
-    protected boolean getRequestSuccess(List<String> line) {
-        return OK.equals(line.get(9));
+    @Override
+    protected ColumnSchema getSchema() {
+        return SCHEMA;
     }
 }
@@ -18,13 +18,20 @@
 package org.nuxeo.tools.gatling.report;
 
 import java.io.File;
-import java.util.List;
 
 /**
  * Gatling 2.3.1 simulation format
  */
 public class SimulationParserV23 extends SimulationParser {
 
+    protected static final ColumnSchema SCHEMA = new ColumnSchema().run(3, 4)
+                                                                   .type(0)
+                                                                   .scenario(1)
+                                                                   .user(3, 4, 5)
+                                                                   .request(4, 5, 6, 7)
+                                                                   .message(8)
+                                                                   .group(3, 4, 5, 6, 7);
+
     public SimulationParserV23(File file, Float apdexT) {
         super(file, apdexT);
     }
@@ -33,39 +40,8 @@ public class SimulationParserV23 extends SimulationParser {
         super(file);
     }
 
-    protected String getSimulationName(List<String> line) {
-        return line.get(3);
-    }
-
-    protected String getSimulationStart(List<String> line) {
-        return line.get(4);
-    }
-
-    protected String getScenario(List<String> line) {
-        return line.get(1);
-    }
-
-    protected String getType(List<String> line) {
-        return line.get(0);
-    }
-
-    protected String getUserType(List<String> line) {
-        return line.get(3);
-    }
-
-    protected String getRequestName(List<String> line) {
-        return line.get(4);
-    }
-
-    protected Long getRequestStart(List<String> line) {
-        return Long.parseLong(line.get(5));
-    }
-
-    protected Long getRequestEnd(List<String> line) {
-        return Long.parseLong(line.get(6));
-    }
-
-    protected boolean getRequestSuccess(List<String> line) {
-        return OK.equals(line.get(7));
+    @Override
+    protected ColumnSchema getSchema() {
+        return SCHEMA;
     }
 }
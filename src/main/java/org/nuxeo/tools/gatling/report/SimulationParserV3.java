@@ -17,77 +17,75 @@
 package org.nuxeo.tools.gatling.report;
 
 import java.io.File;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.io.IOException;
 
 /**
  * Gatling 3.? simulation format
  */
 public class SimulationParserV3 extends SimulationParser {
 
-    protected final Map<String, String> userIdToScenarioMap;
+    protected static final ColumnSchema SCHEMA = new ColumnSchema().run(2, 3)
+                                                                   .type(0)
+                                                                   .user(3, 4, 5)
+                                                                   .request(3, 4, 5, 6)
+                                                                   .message(7)
+                                                                   .group(2, 3, 4, 5, 6)
+                                                                   .error(1);
+
+    protected final UserScenarioTracker userIdToScenarioMap = new UserScenarioTracker();
 
     public SimulationParserV3(File file, Float apdexT) {
         super(file, apdexT);
-        this.userIdToScenarioMap = new HashMap();
     }
 
     public SimulationParserV3(File file) {
         super(file);
-        this.userIdToScenarioMap = new HashMap();
-    }
-
-    protected String getSimulationName(List<String> line) {
-        return line.get(2);
     }
 
-    protected String getSimulationStart(List<String> line) {
-        return line.get(3);
+    @Override
+    protected ColumnSchema getSchema() {
+        return SCHEMA;
     }
 
-    protected String getScenario(List<String> line) {
-        if (getType(line).equals(REQUEST)) {
-            final String userId = line.get(1);
+    protected String getScenario(SimulationLine line) {
+        if (getType(line).equals(REQUEST) || getType(line).equals(GROUP)) {
+            final long userId = line.getLong(1, UNKNOWN_USER);
             return this.userIdToScenarioMap.get(userId);
+        } else if (getType(line).equals(ERROR)) {
+            // no scenario, the message is not pooled
+            return null;
         } else {
-            return line.get(1);
+            return line.intern(1);
         }
     }
 
-    protected String getType(List<String> line) {
-        return line.get(0);
-    }
-
-    protected String getUserType(List<String> line) {
+    @Override
+    protected String getUserType(SimulationLine line) {
         // In Gatling 3.0, the REQUEST line contains the userid, but no longer contains the scenario.
         // To determine a REQUEST's scenario, we need to look it up based on the user id, so save the mapping.
         // Ugly to do it here like this, but the alternative is to add new methods to SimulationParser that would be Gatling 3.0 specfic.
         saveUserIdAndScenario(line);
-        return line.get(3);
-    }
-
-    protected String getRequestName(List<String> line) {
-        return line.get(3);
+        return super.getUserType(line);
     }
 
-    protected Long getRequestStart(List<String> line) {
-        return Long.parseLong(line.get(4));
-    }
-
-    protected Long getRequestEnd(List<String> line) {
-        return Long.parseLong(line.get(5));
+    private void saveUserIdAndScenario(SimulationLine line) {
+        final long userId = line.getLong(2, UNKNOWN_USER);
+        if (line.is(3, END)) {
+            // the user is done, no more request to resolve
+            userIdToScenarioMap.remove(userId);
+        } else {
+            userIdToScenarioMap.put(userId, getScenario(line));
+        }
     }
 
-    protected boolean getRequestSuccess(List<String> line) {
-        return OK.equals(line.get(6));
+    @Override
+    protected SimulationParser trackUsers(long chunkStart, long chunkEnd) throws IOException {
+        userIdToScenarioMap.trackOrphans();
+        return super.trackUsers(chunkStart, chunkEnd);
     }
 
-    private void saveUserIdAndScenario(List<String> line) {
-        final String scenario = getScenario(line);
-        final String userId = line.get(2);
-        userIdToScenarioMap.put(userId, scenario);
+    @Override
+    protected void inheritUsers(SimulationParser previous) {
+        userIdToScenarioMap.inherit(((SimulationParserV3) previous).userIdToScenarioMap);
     }
-
-
 }
@@ -17,16 +17,22 @@
 package org.nuxeo.tools.gatling.report;
 
 import java.io.File;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.io.IOException;
 
 /**
  * Gatling 3.2 simulation format
  */
 public class SimulationParserV32 extends SimulationParser {
 
-    final protected Map<String, String> userScenario = new HashMap<>();
+    protected static final ColumnSchema SCHEMA = new ColumnSchema().run(2, 3)
+                                                                   .type(0)
+                                                                   .user(3, 4, 5)
+                                                                   .request(3, 4, 5, 6)
+                                                                   .message(7)
+                                                                   .group(2, 3, 4, 5, 6)
+                                                                   .error(1);
+
+    final protected UserScenarioTracker userScenario = new UserScenarioTracker();
 
     public SimulationParserV32(File file, Float apdexT) {
         super(file, apdexT);
@@ -36,51 +42,37 @@ public class SimulationParserV32 extends SimulationParser {
         super(file);
     }
 
-    protected String getSimulationName(List<String> line) {
-        return line.get(2);
-    }
-
-    protected String getSimulationStart(List<String> line) {
-        return line.get(3);
+    @Override
+    protected ColumnSchema getSchema() {
+        return SCHEMA;
     }
 
-    protected String getScenario(List<String> line) {
-        String user;
-        if (USER.equals(line.get(0))) {
-            user = line.get(2);
-            if (START.equals(line.get(3))) {
-                String ret = line.get(1);
+    protected String getScenario(SimulationLine line) {
+        long user;
+        if (line.is(0, USER)) {
+            user = line.getLong(2, UNKNOWN_USER);
+            if (line.is(3, START)) {
+                String ret = line.intern(1);
                 userScenario.put(user, ret);
+            } else if (line.is(3, END)) {
+                return userScenario.remove(user);
             }
-        } else if (RUN.equals(line.get(0))) {
-            return line.get(1);
+        } else if (line.is(0, RUN)) {
+            return line.intern(1);
         } else {
-            user = line.get(1);
+            user = line.getLong(1, UNKNOWN_USER);
         }
         return userScenario.get(user);
     }
 
-    protected String getType(List<String> line) {
-        return line.get(0);
-    }
-
-    protected String getUserType(List<String> line) {
-        return line.get(3);
-    }
-
-    protected String getRequestName(List<String> line) {
-        return line.get(3);
-    }
-
-    protected Long getRequestStart(List<String> line) {
-        return Long.parseLong(line.get(4));
-    }
-
-    protected Long getRequestEnd(List<String> line) {
-        return Long.parseLong(line.get(5));
+    @Override
+    protected SimulationParser trackUsers(long chunkStart, long chunkEnd) throws IOException {
+        userScenario.trackOrphans();
+        return super.trackUsers(chunkStart, chunkEnd);
     }
 
-    protected boolean getRequestSuccess(List<String> line) {
-        return OK.equals(line.get(6));
+    @Override
+    protected void inheritUsers(SimulationParser previous) {
+        userScenario.inherit(((SimulationParserV32) previous).userScenario);
     }
 }
@@ -17,16 +17,24 @@
 package org.nuxeo.tools.gatling.report;
 
 import java.io.File;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 
 /**
  * Gatling 3.4 simulation format
  */
 public class SimulationParserV34 extends SimulationParser {
 
-    final protected Map<String, String> userScenario = new HashMap<>();
+    protected static final ColumnSchema SCHEMA = new ColumnSchema().run(2, 3)
+                                                                   .type(0)
+                                                                   .user(2, 3, 4)
+                                                                   .request(2, 3, 4, 5)
+                                                                   .message(6)
+                                                                   .group(1, 2, 3, 4, 5)
+                                                                   .error(1);
+
+    // requests belong to the scenario of the last USER record, only this one is kept
+    protected String userScenario;
+
+    protected boolean userSeen;
 
     public SimulationParserV34(File file, Float apdexT) {
         super(file, apdexT);
@@ -36,55 +44,28 @@ public class SimulationParserV34 extends SimulationParser {
         super(file);
     }
 
-    protected String getSimulationName(List<String> line) {
-        return line.get(2);
-    }
-
-    protected String getSimulationStart(List<String> line) {
-        return line.get(3);
+    @Override
+    protected ColumnSchema getSchema() {
+        return SCHEMA;
     }
 
-    // Variable tracking user number
-    public long userCount = 0;
-
-    protected String getScenario(List<String> line) {
-        String user;
-        if (USER.equals(line.get(0))) {
-            userCount++;
-            user = Long.toString(userCount);
-            if (START.equals(line.get(2)) || END.equals(line.get(2))) {
-                String ret = line.get(1);
-                userScenario.put(user, ret);
-            }
-        } else if (RUN.equals(line.get(0))) {
-            return line.get(1);
-        } else {
-            user = Long.toString(userCount);
+    protected String getScenario(SimulationLine line) {
+        if (line.is(0, USER)) {
+            userSeen = true;
+            userScenario = line.is(2, START) || line.is(2, END) ? line.intern(1) : null;
+        } else if (line.is(0, RUN)) {
+            return line.intern(1);
         }
-        return userScenario.get(user);
-    }
-
-    protected String getType(List<String> line) {
-        return line.get(0);
-    }
-
-    protected String getUserType(List<String> line) {
-        return line.get(2);
-    }
-
-    protected String getRequestName(List<String> line) {
-        return line.get(2);
-    }
-
-    protected Long getRequestStart(List<String> line) {
-        return Long.parseLong(line.get(3));
-    }
-
-    protected Long getRequestEnd(List<String> line) {
-        return Long.parseLong(line.get(4));
+        return userScenario;
     }
 
-    protected boolean getRequestSuccess(List<String> line) {
-        return OK.equals(line.get(5));
+    @Override
+    protected void inheritUsers(SimulationParser previous) {
+        // a worker continues with the scenario of the last USER record of the previous chunks
+        SimulationParserV34 parser = (SimulationParserV34) previous;
+        if (parser.userSeen) {
+            userSeen = true;
+            userScenario = parser.userScenario;
+        }
     }
 }
@@ -18,39 +18,194 @@
  */
 package org.nuxeo.tools.gatling.report;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
-import java.io.Reader;
-import java.util.List;
-
-import net.quux00.simplecsv.CsvParser;
-import net.quux00.simplecsv.CsvParserBuilder;
-import net.quux00.simplecsv.CsvReader;
+import java.io.InputStream;
+import java.util.Arrays;
 
 /**
- * A CsvReader that skip assertions lines
+ * A tab separated reader that skip assertions lines. Lines are tokenized on the raw bytes and returned as a reused
+ * {@link SimulationLine}, no string is created unless a field is read.
  *
  * @since 3.0
  */
-public class SimulationReader extends CsvReader {
+public class SimulationReader implements Closeable {
 
     protected static final String ASSERTION = "assertion";
 
+    protected static final String REQUEST = "REQUEST";
+
+    protected static final String KO = "KO";
+
+    protected static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    protected final InputStream input;
+
+    protected final SimulationLine line;
+
+    protected byte[] buffer;
+
+    protected int pos, limit;
+
+    protected boolean eof;
+
+    protected boolean unread;
+
+    protected ColumnSchema schema;
+
     public SimulationReader(File file) throws IOException {
-        this(Utils.getReaderFor(file), 0,
-                new CsvParserBuilder().trimWhitespace(true).allowUnbalancedQuotes(true).separator('\t').build());
+        this(Utils.getInputStreamFor(file));
     }
 
-    public SimulationReader(Reader reader, int line, CsvParser csvParser) {
-        super(reader, line, csvParser);
+    public SimulationReader(InputStream input) {
+        this(input, new StringPool());
     }
 
-    @Override
-    public List<String> readNext() throws IOException {
-        List<String> ret = super.readNext();
-        if (ret != null && !ret.isEmpty() && ret.get(0).toLowerCase().startsWith(ASSERTION)) {
-            return readNext();
+    public SimulationReader(InputStream input, StringPool pool) {
+        this.input = input;
+        this.buffer = new byte[DEFAULT_BUFFER_SIZE];
+        this.line = new SimulationLine(pool);
+    }
+
+    /**
+     * Projects REQUEST records on the columns of the schema, the trailing columns are not tokenized.
+     *
+     * @since 7.0
+     */
+    public void setSchema(ColumnSchema schema) {
+        this.schema = schema;
+    }
+
+    /**
+     * Returns the next non empty line or null at the end of the stream. The returned line is reused by the next call.
+     */
+    public SimulationLine readNext() throws IOException {
+        if (unread) {
+            unread = false;
+            return line;
+        }
+        while (tokenizeLine()) {
+            if (!line.isEmpty() && !isAssertion()) {
+                return line;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Pushes back the line returned by the last {@link #readNext()}, the next call returns it again.
+     *
+     * @since 7.0
+     */
+    public void unread() {
+        unread = true;
+    }
+
+    /**
+     * Returns up to {@code count} bytes ahead of the current line without consuming them.
+     *
+     * @since 7.0
+     */
+    public byte[] peek(int count) throws IOException {
+        while (limit - pos < count && !eof) {
+            fill();
         }
-        return ret;
+        return Arrays.copyOfRange(buffer, pos, Math.min(limit, pos + count));
+    }
+
+    protected boolean tokenizeLine() throws IOException {
+        for (;;) {
+            line.reset(buffer);
+            int fieldStart = pos;
+            int maxFields = Integer.MAX_VALUE;
+            for (int i = pos; i < limit; i++) {
+                byte b = buffer[i];
+                if (b == '\t') {
+                    if (line.size() < maxFields) {
+                        line.addField(fieldStart, i);
+                        maxFields = project(maxFields);
+                    }
+                    fieldStart = i + 1;
+                } else if (b == '\n') {
+                    addLastField(fieldStart, i, maxFields);
+                    pos = i + 1;
+                    return true;
+                }
+            }
+            if (eof) {
+                if (pos == limit) {
+                    return false;
+                }
+                addLastField(fieldStart, limit, maxFields);
+                pos = limit;
+                return true;
+            }
+            fill();
+        }
+    }
+
+    /**
+     * Returns the number of columns to tokenize for the current line according to the schema.
+     */
+    protected int project(int maxFields) {
+        if (schema == null) {
+            return maxFields;
+        }
+        int size = line.size();
+        if (size == schema.type + 1 && line.is(schema.type, REQUEST)) {
+            return schema.getRequestColumns();
+        }
+        if (size == schema.status + 1 && schema.message >= 0 && maxFields == schema.getRequestColumns()
+                && line.is(schema.status, KO)) {
+            return Math.max(maxFields, schema.message + 1);
+        }
+        return maxFields;
+    }
+
+    protected void addLastField(int fieldStart, int end, int maxFields) {
+        if ((end > fieldStart || line.size() > 0) && line.size() < maxFields) {
+            line.addField(fieldStart, end);
+        }
+    }
+
+    /**
+     * Moves the pending bytes at the beginning of the buffer, growing it when it is full, and reads more bytes.
+     */
+    protected void fill() throws IOException {
+        int remaining = limit - pos;
+        if (remaining == buffer.length) {
+            byte[] newBuffer = new byte[buffer.length * 2];
+            System.arraycopy(buffer, pos, newBuffer, 0, remaining);
+            buffer = newBuffer;
+        } else if (pos > 0) {
+            System.arraycopy(buffer, pos, buffer, 0, remaining);
+        }
+        pos = 0;
+        limit = remaining;
+        int count = input.read(buffer, limit, buffer.length - limit);
+        if (count < 0) {
+            eof = true;
+        } else {
+            limit += count;
+        }
+    }
+
+    protected boolean isAssertion() {
+        int start = line.starts[0];
+        if (line.ends[0] - start < ASSERTION.length()) {
+            return false;
+        }
+        for (int i = 0; i < ASSERTION.length(); i++) {
+            if (Character.toLowerCase((char) buffer[start + i]) != ASSERTION.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
     }
 }
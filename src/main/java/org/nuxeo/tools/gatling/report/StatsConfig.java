@@ -0,0 +1,139 @@
+/*
+ * (C) Copyright 2026 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package org.nuxeo.tools.gatling.report;
+
+import java.util.Arrays;
+
+/**
+ * How the request statistics are computed, shared by the parser, its contexts and their stats.
+ *
+ * @since 7.0
+ */
+public class StatsConfig {
+
+    public static final double[] DEFAULT_PERCENTILES = { 50, 90, 95, 99 };
+
+    public static final int DEFAULT_HISTOGRAM_DIGITS = 3;
+
+    protected double[] percentiles = DEFAULT_PERCENTILES.clone();
+
+    // 0 when every sample is kept to compute exact percentiles
+    protected int histogramDigits;
+
+    // no sample is kept, percentiles come from a histogram when requested
+    protected boolean summaryOnly;
+
+    // width of the time series buckets in ms, 0 without time series, its memory grows with the run duration
+    protected int timeBucket;
+
+    /**
+     * Records the durations in a log-linear histogram with this number of significant digits instead of keeping every
+     * sample, 0 to keep the samples.
+     */
+    public StatsConfig histogram(int significantDigits) {
+        if (significantDigits != 0
+                && (significantDigits < Histogram.MIN_DIGITS || significantDigits > Histogram.MAX_DIGITS)) {
+            throw new IllegalArgumentException("Invalid histogram significant digits: " + significantDigits);
+        }
+        this.histogramDigits = significantDigits;
+        return this;
+    }
+
+    /**
+     * Keeps no sample, only the count, errors, min, max, average, deviation, throughput and Apdex are computed in
+     * constant memory per request. No percentile is reported unless set after this call, they are then estimated with
+     * a histogram.
+     */
+    public StatsConfig summaryOnly() {
+        this.summaryOnly = true;
+        this.percentiles = new double[0];
+        return this;
+    }
+
+    /**
+     * Sets the width in ms of the time series buckets, 0 to disable the time series. The time series is disabled by
+     * default.
+     */
+    public StatsConfig timeBucket(int width) {
+        if (width < 0) {
+            throw new IllegalArgumentException("Invalid time bucket width: " + width);
+        }
+        this.timeBucket = width;
+        return this;
+    }
+
+    /**
+     * Sets the percentiles to report, kept sorted without duplicates.
+     */
+    public StatsConfig percentiles(double... percentiles) {
+        if (percentiles.length == 0) {
+            throw new IllegalArgumentException("No percentile");
+        }
+        for (double percentile : percentiles) {
+            if (!(percentile > 0 && percentile <= 100)) {
+                throw new IllegalArgumentException("Invalid percentile: " + percentile);
+            }
+        }
+        this.percentiles = Arrays.stream(percentiles).sorted().distinct().toArray();
+        return this;
+    }
+
+    public double[] getPercentiles() {
+        return percentiles;
+    }
+
+    /**
+     * Returns the CSV header columns of the percentiles, each followed by a tab.
+     */
+    public String getPercentileColumns() {
+        StringBuilder ret = new StringBuilder();
+        for (double percentile : percentiles) {
+            ret.append(getPercentileName(percentile)).append('\t');
+        }
+        return ret.toString();
+    }
+
+    /**
+     * Returns the name of a percentile, like p50 or p99.9.
+     */
+    public static String getPercentileName(double percentile) {
+        if (percentile == Math.rint(percentile)) {
+            return "p" + (long) percentile;
+        }
+        return "p" + percentile;
+    }
+
+    public int getTimeBucket() {
+        return timeBucket;
+    }
+
+    public boolean isSummaryOnly() {
+        return summaryOnly;
+    }
+
+    public boolean isHistogram() {
+        return summaryOnly ? percentiles.length > 0 : histogramDigits > 0;
+    }
+
+    public int getHistogramDigits() {
+        return histogramDigits > 0 ? histogramDigits : DEFAULT_HISTOGRAM_DIGITS;
+    }
+
+    /**
+     * Returns true when every duration is kept to compute exact percentiles.
+     */
+    public boolean isSampling() {
+        return !isHistogram() && !summaryOnly;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * (C) Copyright 2026 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package org.nuxeo.tools.gatling.report;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * An open addressing table of strings keyed by their UTF-8 bytes, a lookup does not allocate. Each pooled string
+ * gets a dense symbol id.
+ *
+ * @since 7.0
+ */
+public class StringPool {
+
+    // number of strings above which cache() stops adding strings
+    protected static final int MAX_CACHED = 8192;
+
+    protected static final String[] KEYWORDS = { "", "RUN", "REQUEST", "USER", "GROUP", "ERROR", "START", "END",
+            "OK", "KO" };
+
+    protected byte[][] keys = new byte[64][];
+
+    protected int[] hashes = new int[64];
+
+    protected int[] ids = new int[64];
+
+    protected String[] strings = new String[32];
+
+    protected int size;
+
+    public StringPool() {
+        for (String keyword : KEYWORDS) {
+            byte[] bytes = keyword.getBytes(StandardCharsets.UTF_8);
+            intern(bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * Returns the pooled string matching the bytes or null.
+     */
+    public String get(byte[] buffer, int start, int end) {
+        int hash = hash(buffer, start, end);
+        int mask = keys.length - 1;
+        for (int i = hash & mask;; i = (i + 1) & mask) {
+            byte[] key = keys[i];
+            if (key == null) {
+                return null;
+            }
+            if (hashes[i] == hash && matches(key, buffer, start, end)) {
+                return strings[ids[i]];
+            }
+        }
+    }
+
+    /**
+     * Returns the pooled string matching the bytes, decoding and adding it when missing.
+     */
+    public String intern(byte[] buffer, int start, int end) {
+        // the array must be read after adding the string, that may grow it
+        int symbol = symbol(buffer, start, end);
+        return strings[symbol];
+    }
+
+    /**
+     * Returns the pooled string matching the bytes, adding it only while the pool is not full, to use for values with
+     * a possibly high cardinality like error messages.
+     */
+    public String cache(byte[] buffer, int start, int end) {
+        String ret = get(buffer, start, end);
+        if (ret != null) {
+            return ret;
+        }
+        if (size < MAX_CACHED) {
+            return intern(buffer, start, end);
+        }
+        return new String(buffer, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the dense id of the pooled string matching the bytes, adding it when missing.
+     */
+    public int symbol(byte[] buffer, int start, int end) {
+        int hash = hash(buffer, start, end);
+        int mask = keys.length - 1;
+        int i = hash & mask;
+        for (;; i = (i + 1) & mask) {
+            byte[] key = keys[i];
+            if (key == null) {
+                break;
+            }
+            if (hashes[i] == hash && matches(key, buffer, start, end)) {
+                return ids[i];
+            }
+        }
+        String value = new String(buffer, start, end - start, StandardCharsets.UTF_8);
+        keys[i] = Arrays.copyOfRange(buffer, start, end);
+        hashes[i] = hash;
+        ids[i] = size;
+        if (size == strings.length) {
+            strings = Arrays.copyOf(strings, size * 2);
+        }
+        strings[size] = value;
+        if (++size * 2 > keys.length) {
+            rehash();
+        }
+        return size - 1;
+    }
+
+    /**
+     * Returns the string of a symbol.
+     */
+    public String get(int symbol) {
+        return strings[symbol];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    protected void rehash() {
+        byte[][] oldKeys = keys;
+        int[] oldHashes = hashes;
+        int[] oldIds = ids;
+        keys = new byte[oldKeys.length * 2][];
+        hashes = new int[oldKeys.length * 2];
+        ids = new int[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] == null) {
+                continue;
+            }
+            int i = oldHashes[j] & mask;
+            while (keys[i] != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = oldKeys[j];
+            hashes[i] = oldHashes[j];
+            ids[i] = oldIds[j];
+        }
+    }
+
+    protected static int hash(byte[] buffer, int start, int end) {
+        int h = 1;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + buffer[i];
+        }
+        return h ^ (h >>> 16);
+    }
+
+    protected static boolean matches(byte[] key, byte[] buffer, int start, int end) {
+        if (key.length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] != buffer[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,443 @@
+/*
+ * (C) Copyright 2026 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package org.nuxeo.tools.gatling.report;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Requests aggregated in fixed-width time buckets, to follow the throughput, the errors and the response time during
+ * the simulation. A request falls in the bucket of its start, the bucket index is its offset from the simulation start
+ * divided by the bucket width, so adding a request is done in constant time. Each bucket has a compact histogram of the
+ * response times, its percentiles are within a few percent of the exact values.
+ * <p>
+ * The series holds at most {@link #MAX_BUCKETS} buckets, a timestamp beyond them is a corrupted or unrelated record and
+ * is ignored instead of allocating buckets up to it.
+ * <p>
+ * The users started and ended in each bucket are counted per scenario, the active users of a bucket are the users
+ * running at its start plus the users started during it.
+ *
+ * @since 7.0
+ */
+public class TimeSeries {
+
+    public static final int DEFAULT_BUCKET_WIDTH = 1000;
+
+    // 12 days with the default width
+    public static final int MAX_BUCKETS = 1 << 20;
+
+    // 16 linear sub-buckets per power of 2
+    protected static final int BUCKET_DIGITS = 1;
+
+    protected static final int INITIAL_CAPACITY = 64;
+
+    protected final int width;
+
+    protected final double[] percentiles;
+
+    protected String simulation;
+
+    protected long origin;
+
+    // number of buckets up to the last one with a request or a user event
+    protected int size;
+
+    protected long[] counts = new long[INITIAL_CAPACITY];
+
+    protected long[] errorCounts = new long[INITIAL_CAPACITY];
+
+    protected long[] sums = new long[INITIAL_CAPACITY];
+
+    // null for an empty bucket
+    protected Histogram[] histograms = new Histogram[INITIAL_CAPACITY];
+
+    protected final Map<String, UserCounts> users = new HashMap<>();
+
+    public TimeSeries(int width, double[] percentiles) {
+        if (width <= 0) {
+            throw new IllegalArgumentException("Invalid time bucket width: " + width);
+        }
+        this.width = width;
+        this.percentiles = percentiles;
+    }
+
+    public static String header(StatsConfig config) {
+        return "simulation\tstart\tstartDate\telapsed\tcount\terrorCount\trps\terrorRps\tmin\t"
+                + config.getPercentileColumns() + "max\tavg\tusers";
+    }
+
+    public void setSimulationName(String name) {
+        simulation = name;
+    }
+
+    /**
+     * Sets the start of the first bucket, before adding any request.
+     */
+    public void setOrigin(long origin) {
+        this.origin = origin;
+    }
+
+    public void add(long start, long end, boolean success) {
+        int index = bucket(start);
+        if (index < 0) {
+            return;
+        }
+        long duration = end - start;
+        counts[index]++;
+        if (!success) {
+            errorCounts[index]++;
+        }
+        sums[index] += duration;
+        if (histograms[index] == null) {
+            histograms[index] = new Histogram(BUCKET_DIGITS);
+        }
+        histograms[index].add(duration);
+    }
+
+    public void addUser(String scenario, long timestamp) {
+        int index = bucket(timestamp);
+        if (index >= 0) {
+            users.computeIfAbsent(scenario, k -> new UserCounts()).started(index);
+        }
+    }
+
+    public void endUser(String scenario, long timestamp) {
+        int index = bucket(timestamp);
+        if (index >= 0) {
+            users.computeIfAbsent(scenario, k -> new UserCounts()).ended(index);
+        }
+    }
+
+    /**
+     * Returns the index of the bucket of a timestamp, the buckets up to this one are allocated. Returns -1 for a
+     * timestamp beyond the last bucket.
+     */
+    protected int bucket(long timestamp) {
+        long index = Math.max(0, (timestamp - origin) / width);
+        if (index >= MAX_BUCKETS) {
+            return -1;
+        }
+        int ret = (int) index;
+        if (ret >= counts.length) {
+            grow(ret + 1);
+        }
+        if (ret >= size) {
+            size = ret + 1;
+        }
+        return ret;
+    }
+
+    /**
+     * Adds the buckets of a time series with the same origin and width.
+     */
+    public void merge(TimeSeries other) {
+        if (other.width != width || other.origin != origin) {
+            throw new IllegalArgumentException("Can not merge time series with a different origin or width");
+        }
+        if (other.size > counts.length) {
+            grow(other.size);
+        }
+        for (int i = 0; i < other.size; i++) {
+            counts[i] += other.counts[i];
+            errorCounts[i] += other.errorCounts[i];
+            sums[i] += other.sums[i];
+            if (other.histograms[i] == null) {
+                continue;
+            }
+            if (histograms[i] == null) {
+                histograms[i] = new Histogram(BUCKET_DIGITS);
+            }
+            histograms[i].merge(other.histograms[i]);
+        }
+        other.users.forEach((scenario, counts) -> users.computeIfAbsent(scenario, k -> new UserCounts()).merge(counts));
+        size = Math.max(size, other.size);
+    }
+
+    protected static int newCapacity(int length, int minCapacity) {
+        return Math.min(MAX_BUCKETS, Math.max(minCapacity, length + (length >> 1)));
+    }
+
+    protected void grow(int minCapacity) {
+        int capacity = newCapacity(counts.length, minCapacity);
+        counts = Arrays.copyOf(counts, capacity);
+        errorCounts = Arrays.copyOf(errorCounts, capacity);
+        sums = Arrays.copyOf(sums, capacity);
+        histograms = Arrays.copyOf(histograms, capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public List<Bucket> getBuckets() {
+        int[] active = getActiveUsers();
+        List<Bucket> ret = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ret.add(new Bucket(i, active[i]));
+        }
+        return ret;
+    }
+
+    /**
+     * Returns the elapsed seconds at the start of each bucket as a javascript array.
+     */
+    public String times() {
+        return toArray(i -> format(i * (double) width / 1000));
+    }
+
+    public String throughputs() {
+        return toArray(i -> format(counts[i] * 1000.0 / width));
+    }
+
+    public String errorThroughputs() {
+        return toArray(i -> format(errorCounts[i] * 1000.0 / width));
+    }
+
+    /**
+     * Returns the average response time of each bucket, null for an empty bucket to leave a gap in the chart.
+     */
+    public String averages() {
+        return toArray(i -> counts[i] == 0 ? "null" : format((double) sums[i] / counts[i]));
+    }
+
+    /**
+     * Returns the active users of each scenario, sorted by scenario.
+     */
+    public List<Series> getUserSeries() {
+        List<Series> ret = new ArrayList<>(users.size());
+        users.keySet().stream().sorted().forEach(scenario -> {
+            int[] active = users.get(scenario).getActive(size);
+            ret.add(new Series(scenario, toArray(i -> String.valueOf(active[i]))));
+        });
+        return ret;
+    }
+
+    public boolean hasUsers() {
+        return !users.isEmpty();
+    }
+
+    /**
+     * Returns the active users of all the scenarios per bucket.
+     */
+    protected int[] getActiveUsers() {
+        int[] ret = new int[size];
+        for (UserCounts counts : users.values()) {
+            int[] active = counts.getActive(size);
+            for (int i = 0; i < size; i++) {
+                ret[i] += active[i];
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Returns the series of each configured percentile.
+     */
+    public List<Series> getPercentileSeries() {
+        List<Series> ret = new ArrayList<>(percentiles.length);
+        long[][] values = new long[size][];
+        for (int i = 0; i < size; i++) {
+            values[i] = histograms[i] == null ? null : histograms[i].getValuesAtPercentiles(percentiles);
+        }
+        for (int p = 0; p < percentiles.length; p++) {
+            int index = p;
+            ret.add(new Series(StatsConfig.getPercentileName(percentiles[p]),
+                    toArray(i -> values[i] == null ? "null" : String.valueOf(values[i][index]))));
+        }
+        return ret;
+    }
+
+    protected String toArray(IntFunction<String> value) {
+        StringBuilder ret = new StringBuilder(size * 6 + 2);
+        ret.append('[');
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                ret.append(", ");
+            }
+            ret.append(value.apply(i));
+        }
+        return ret.append(']').toString();
+    }
+
+    protected static String format(double value) {
+        return String.format(Locale.ENGLISH, "%.1f", value);
+    }
+
+    @Override
+    public String toString() {
+        return getBuckets().stream().map(Bucket::toString).collect(Collectors.joining("\n"));
+    }
+
+    /**
+     * The requests started in a time bucket.
+     */
+    public class Bucket {
+        protected final int index;
+
+        protected final int activeUsers;
+
+        protected Bucket(int index, int activeUsers) {
+            this.index = index;
+            this.activeUsers = activeUsers;
+        }
+
+        public long getStart() {
+            return origin + (long) index * width;
+        }
+
+        public double getElapsed() {
+            return index * (double) width / 1000;
+        }
+
+        public long getCount() {
+            return counts[index];
+        }
+
+        public long getErrorCount() {
+            return errorCounts[index];
+        }
+
+        public double getThroughput() {
+            return counts[index] * 1000.0 / width;
+        }
+
+        public double getErrorThroughput() {
+            return errorCounts[index] * 1000.0 / width;
+        }
+
+        public double getAverage() {
+            return counts[index] == 0 ? 0 : (double) sums[index] / counts[index];
+        }
+
+        public long getMin() {
+            return histograms[index] == null ? 0 : histograms[index].getMin();
+        }
+
+        public long getMax() {
+            return histograms[index] == null ? 0 : histograms[index].getMax();
+        }
+
+        public int getActiveUsers() {
+            return activeUsers;
+        }
+
+        public long[] getPercentileValues() {
+            if (histograms[index] == null) {
+                return new long[percentiles.length];
+            }
+            return histograms[index].getValuesAtPercentiles(percentiles);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder values = new StringBuilder();
+            for (long value : getPercentileValues()) {
+                values.append(value).append('\t');
+            }
+            String startDate = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+                                                .withZone(ZoneId.systemDefault())
+                                                .format(Instant.ofEpochMilli(getStart()));
+            return String.format(Locale.ENGLISH, "%s\t%s\t%s\t%.1f\t%s\t%s\t%.2f\t%.2f\t%s\t%s%s\t%.2f\t%s", simulation,
+                    getStart(), startDate, getElapsed(), getCount(), getErrorCount(), getThroughput(),
+                    getErrorThroughput(), getMin(), values, getMax(), getAverage(), activeUsers);
+        }
+    }
+
+    /**
+     * The users of a scenario started and ended per bucket.
+     */
+    protected static class UserCounts {
+        protected int[] started = new int[INITIAL_CAPACITY];
+
+        protected int[] ended = new int[INITIAL_CAPACITY];
+
+        protected void started(int index) {
+            if (index >= started.length) {
+                started = Arrays.copyOf(started, newCapacity(started.length, index + 1));
+            }
+            started[index]++;
+        }
+
+        protected void ended(int index) {
+            if (index >= ended.length) {
+                ended = Arrays.copyOf(ended, newCapacity(ended.length, index + 1));
+            }
+            ended[index]++;
+        }
+
+        protected void merge(UserCounts other) {
+            if (other.started.length > started.length) {
+                started = Arrays.copyOf(started, other.started.length);
+            }
+            for (int i = 0; i < other.started.length; i++) {
+                started[i] += other.started[i];
+            }
+            if (other.ended.length > ended.length) {
+                ended = Arrays.copyOf(ended, other.ended.length);
+            }
+            for (int i = 0; i < other.ended.length; i++) {
+                ended[i] += other.ended[i];
+            }
+        }
+
+        /**
+         * Returns the users running at the start of each bucket plus the users started during it.
+         */
+        protected int[] getActive(int size) {
+            int[] ret = new int[size];
+            int running = 0;
+            for (int i = 0; i < size; i++) {
+                int start = i < started.length ? started[i] : 0;
+                ret[i] = running + start;
+                running += start - (i < ended.length ? ended[i] : 0);
+            }
+            return ret;
+        }
+    }
+
+    /**
+     * A named series of values rendered as a javascript array.
+     */
+    public static class Series {
+        protected final String name;
+
+        protected final String values;
+
+        public Series(String name, String values) {
+            this.name = name;
+            this.values = values;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getValues() {
+            return values;
+        }
+    }
+}
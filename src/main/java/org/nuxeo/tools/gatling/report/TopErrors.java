@@ -0,0 +1,205 @@
+/*
+ * (C) Copyright 2026 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package org.nuxeo.tools.gatling.report;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * The most frequent error messages, counted with the Space-Saving algorithm: a fixed number of counters is kept, a
+ * new message takes over the counter with the lowest count. Any message more frequent than {@code total / capacity}
+ * is kept, a count may be overestimated by at most its {@link ErrorCount#getError()}. The counters are also kept in a
+ * min heap by count, so finding the counter to replace and updating a count take a logarithmic time.
+ *
+ * @since 7.0
+ */
+public class TopErrors {
+
+    public static final int DEFAULT_CAPACITY = 32;
+
+    public static final int DEFAULT_TOP = 5;
+
+    protected static final Comparator<ErrorCount> BY_COUNT = Comparator.comparingLong(ErrorCount::getCount)
+                                                                       .reversed()
+                                                                       .thenComparing(ErrorCount::getMessage);
+
+    protected final int capacity;
+
+    protected final Map<String, ErrorCount> counters = new HashMap<>();
+
+    // the counters by increasing count, each counter knows its index
+    protected final ErrorCount[] heap;
+
+    protected long total;
+
+    public TopErrors() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public TopErrors(int capacity) {
+        this.capacity = capacity;
+        heap = new ErrorCount[capacity];
+    }
+
+    public void add(String message) {
+        add(message, 1, 0);
+    }
+
+    protected void add(String message, long count, long error) {
+        total += count;
+        ErrorCount counter = counters.get(message);
+        if (counter != null) {
+            counter.count += count;
+            counter.error += error;
+            siftDown(counter.index);
+        } else if (counters.size() < capacity) {
+            counter = new ErrorCount(message, count, error);
+            counter.index = counters.size();
+            heap[counter.index] = counter;
+            counters.put(message, counter);
+            siftUp(counter.index);
+        } else {
+            // replace the least frequent message, its count is an upper bound of the new message count
+            ErrorCount min = heap[0];
+            counters.remove(min.message);
+            min.error = min.count + error;
+            min.count += count;
+            min.message = message;
+            counters.put(message, min);
+            siftDown(0);
+        }
+    }
+
+    protected void siftUp(int index) {
+        ErrorCount counter = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (heap[parent].count <= counter.count) {
+                break;
+            }
+            place(heap[parent], index);
+            index = parent;
+        }
+        place(counter, index);
+    }
+
+    protected void siftDown(int index) {
+        ErrorCount counter = heap[index];
+        int size = counters.size();
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+                child++;
+            }
+            if (counter.count <= heap[child].count) {
+                break;
+            }
+            place(heap[child], index);
+            index = child;
+        }
+        place(counter, index);
+    }
+
+    protected void place(ErrorCount counter, int index) {
+        heap[index] = counter;
+        counter.index = index;
+    }
+
+    /**
+     * Merges the counters of another sketch, the merged counts stay upper bounds.
+     */
+    public void merge(TopErrors other) {
+        long mergedTotal = total + other.total;
+        other.counters.values().forEach(counter -> add(counter.message, counter.count, counter.error));
+        total = mergedTotal;
+    }
+
+    /**
+     * Returns the most frequent messages by decreasing count.
+     */
+    public List<ErrorCount> getTop() {
+        return getTop(DEFAULT_TOP);
+    }
+
+    public List<ErrorCount> getTop(int size) {
+        List<ErrorCount> ret = new ArrayList<>(counters.values());
+        ret.sort(BY_COUNT);
+        return ret.size() > size ? new ArrayList<>(ret.subList(0, size)) : ret;
+    }
+
+    public boolean isEmpty() {
+        return counters.isEmpty();
+    }
+
+    /**
+     * Returns the number of messages added.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return getTop().stream().map(ErrorCount::toString).collect(Collectors.joining(" | "));
+    }
+
+    public static class ErrorCount {
+        protected String message;
+
+        protected long count;
+
+        protected long error;
+
+        // position in the heap of the sketch
+        protected int index;
+
+        public ErrorCount(String message, long count, long error) {
+            this.message = message;
+            this.count = count;
+            this.error = error;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Returns the maximum overestimation of the count.
+         */
+        public long getError() {
+            return error;
+        }
+
+        public String getYamlMessage() {
+            return Utils.toYamlString(message);
+        }
+
+        @Override
+        public String toString() {
+            // keep the message on a single line
+            return message.replaceAll("[\\t\\r\\n]+", " ") + " (" + count + ")";
+        }
+    }
+}
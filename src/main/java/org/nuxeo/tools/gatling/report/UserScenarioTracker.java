@@ -0,0 +1,183 @@
+/*
+ * (C) Copyright 2026 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package org.nuxeo.tools.gatling.report;
+
+import java.util.Arrays;
+
+/**
+ * Tracks the scenario of the running virtual users, keyed by the numeric user id. An entry is removed when the user
+ * ends so the memory depends on the number of concurrent users, not on the total number of users. A negative id
+ * stands for a user id that is not a number, it is never tracked.
+ *
+ * @since 7.0
+ */
+public class UserScenarioTracker {
+
+    protected long[] keys = new long[64];
+
+    protected String[] values = new String[64];
+
+    protected int size;
+
+    // users ended without being started, only happens for a chunk of a log parsed in parallel
+    protected long[] orphans = new long[0];
+
+    protected int orphanCount;
+
+    protected boolean trackOrphans;
+
+    /**
+     * Records the users ended without being started so they can be removed from the next chunk, only needed when
+     * tracking the users of a chunk of a log parsed in parallel, they are dropped otherwise.
+     */
+    public UserScenarioTracker trackOrphans() {
+        trackOrphans = true;
+        return this;
+    }
+
+    public void put(long user, String scenario) {
+        if (user < 0) {
+            return;
+        }
+        if (scenario == null) {
+            remove(user);
+            return;
+        }
+        int mask = keys.length - 1;
+        int i = hash(user) & mask;
+        while (values[i] != null) {
+            if (keys[i] == user) {
+                values[i] = scenario;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = user;
+        values[i] = scenario;
+        if (++size * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    /**
+     * Returns the scenario of a running user or null.
+     */
+    public String get(long user) {
+        int i = user < 0 ? -1 : indexOf(user);
+        return i < 0 ? null : values[i];
+    }
+
+    /**
+     * Removes a user that ends, returns its scenario or null when the user was not started.
+     */
+    public String remove(long user) {
+        if (user < 0) {
+            return null;
+        }
+        int i = indexOf(user);
+        if (i < 0) {
+            if (!trackOrphans) {
+                return null;
+            }
+            if (orphanCount == orphans.length) {
+                orphans = Arrays.copyOf(orphans, Math.max(16, orphanCount * 2));
+            }
+            orphans[orphanCount++] = user;
+            return null;
+        }
+        String ret = values[i];
+        delete(i);
+        return ret;
+    }
+
+    /**
+     * Applies the users started and ended by another tracker, used to chain the chunks of a log parsed in parallel.
+     */
+    public void inherit(UserScenarioTracker other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.values[i] != null) {
+                put(other.keys[i], other.values[i]);
+            }
+        }
+        for (int i = 0; i < other.orphanCount; i++) {
+            int index = indexOf(other.orphans[i]);
+            if (index >= 0) {
+                delete(index);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    protected int indexOf(long user) {
+        int mask = keys.length - 1;
+        for (int i = hash(user) & mask; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == user) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Removes a slot, shifting back the following entries of the probe sequence instead of leaving a tombstone.
+     */
+    protected void delete(int i) {
+        int mask = keys.length - 1;
+        int j = i;
+        for (;;) {
+            j = (j + 1) & mask;
+            if (values[j] == null) {
+                break;
+            }
+            int home = hash(keys[j]) & mask;
+            // move the entry when its home slot is not in the cyclic range (i, j]
+            if (i <= j ? (home <= i || home > j) : (home <= i && home > j)) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        values[i] = null;
+        size--;
+    }
+
+    protected void rehash(int capacity) {
+        long[] oldKeys = keys;
+        String[] oldValues = values;
+        keys = new long[capacity];
+        values = new String[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldValues[j] == null) {
+                continue;
+            }
+            int i = hash(oldKeys[j]) & mask;
+            while (values[i] != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = oldKeys[j];
+            values[i] = oldValues[j];
+        }
+    }
+
+    protected static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
@@ -20,7 +20,6 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -31,6 +30,7 @@ import java.net.MalformedURLException;
 import java.net.PasswordAuthentication;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
 import java.util.zip.GZIPInputStream;
 
 public class Utils {
@@ -92,12 +92,38 @@ public class Utils {
     }
 
     public static Reader getReaderFor(File file) throws IOException {
-        if (GZ.equals(getFileExtension(file))) {
-            InputStream fileStream = new FileInputStream(file);
-            InputStream gzipStream = new GZIPInputStream(fileStream);
-            return new InputStreamReader(gzipStream, "UTF-8");
+        return new InputStreamReader(getInputStreamFor(file), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns a stream of the raw bytes of the file, uncompressing gzip file, uncompressed file are memory mapped.
+     *
+     * @since 7.0
+     */
+    public static InputStream getInputStreamFor(File file) throws IOException {
+        return getInputStreamFor(file, false);
+    }
+
+    /**
+     * Same as {@link #getInputStreamFor(File)}, when pipelined a gzip file is inflated by a dedicated thread.
+     *
+     * @since 7.0
+     */
+    public static InputStream getInputStreamFor(File file, boolean pipelined) throws IOException {
+        if (isCompressed(file) && pipelined) {
+            return new PipelinedGzipInputStream(file);
+        }
+        if (isCompressed(file)) {
+            return new GZIPInputStream(new FileInputStream(file), 64 * 1024);
         }
-        return new FileReader(file);
+        return new MappedFileInputStream(file);
+    }
+
+    /**
+     * @since 7.0
+     */
+    public static boolean isCompressed(File file) {
+        return GZ.equals(getFileExtension(file));
     }
 
     public static String getFileExtension(File file) {
@@ -127,4 +153,40 @@ public class Utils {
         }
     }
 
+    /**
+     * Returns the value as a YAML double quoted scalar.
+     *
+     * @since 7.0
+     */
+    public static String toYamlString(String value) {
+        StringBuilder ret = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+            case '"':
+                ret.append("\\\"");
+                break;
+            case '\\':
+                ret.append("\\\\");
+                break;
+            case '\n':
+                ret.append("\\n");
+                break;
+            case '\r':
+                ret.append("\\r");
+                break;
+            case '\t':
+                ret.append("\\t");
+                break;
+            default:
+                if (c < 0x20 || c == 0x7f) {
+                    ret.append(String.format("\\x%02x", (int) c));
+                } else {
+                    ret.append(c);
+                }
+            }
+        }
+        return ret.append('"').toString();
+    }
+
 }
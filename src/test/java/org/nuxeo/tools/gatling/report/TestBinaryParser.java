@@ -13,16 +13,23 @@
  */
 package org.nuxeo.tools.gatling.report;
 
+import java.io.BufferedOutputStream;
 import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.sun.management.ThreadMXBean;
+
 public class TestBinaryParser {
 
     protected static final String SIM_BINARY = "simulation-binary.log";
@@ -185,6 +192,151 @@ public class TestBinaryParser {
             context.getRequests().size() > 0);
     }
 
+    @Test
+    public void testParseInParallel() throws Exception {
+        File testFile = File.createTempFile("test_parallel", ".log");
+        testFile.deleteOnExit();
+
+        int requests = writeSimulation(testFile, 200_000);
+
+        StatsConfig config = new StatsConfig().timeBucket(TimeSeries.DEFAULT_BUCKET_WIDTH);
+        SimulationContext expected = new SimulationParserBinary(testFile).setStatsConfig(config).parse();
+        SimulationContext context = new SimulationParserBinary(testFile).setStatsConfig(config).setThreads(4).parse();
+
+        Assert.assertEquals(requests, expected.getSimStat().getCount());
+        Assert.assertEquals(37, expected.getRequests().size());
+        Assert.assertEquals(expected.toString(), context.toString());
+        Assert.assertEquals(expected.maxUsers, context.maxUsers);
+        Assert.assertEquals(expected.getTimeSeries().toString(), context.getTimeSeries().toString());
+
+        List<GroupStat> groups = expected.getGroups();
+        Assert.assertEquals(6, groups.size());
+        Assert.assertEquals(200, groups.stream().mapToLong(GroupStat::getCount).sum());
+        Assert.assertTrue(groups.stream().anyMatch(group -> "Outer,Group 1".equals(group.getGroup())));
+        Assert.assertEquals("10.0", groups.get(0).averageCumulated());
+        Assert.assertEquals(groups.toString(), context.getGroups().toString());
+    }
+
+    /**
+     * Writes a binary simulation with users, groups, errors and requests, returns the number of requests.
+     */
+    protected int writeSimulation(File file, int records) throws IOException {
+        int requests = 0;
+        try (DataOutputStream dos = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)))) {
+            // Binary marker, version and Run record
+            dos.writeInt(0);
+            dos.writeByte(6);
+            dos.write("3.14.3".getBytes(StandardCharsets.UTF_8));
+            dos.writeByte(0);
+            writeString(dos, "com.example.TestSimulation");
+            dos.writeLong(1234567890000L);
+            writeString(dos, "Test Run");
+            dos.writeInt(2);
+            writeString(dos, "Scenario A");
+            writeString(dos, "Scenario B");
+            dos.writeInt(0);
+
+            // cached strings are defined on first use and referenced by the following chunks
+            Map<String, Integer> cache = new HashMap<>();
+            for (int i = 0; i < records; i++) {
+                if (i % 100 == 0) {
+                    writeUser(dos, (i / 100) % 2, true, i);
+                } else if (i % 100 == 50 && i > 20_000 && i < records - 20_000) {
+                    // users live for 200 records, ending in a later chunk than their start
+                    writeUser(dos, ((i - 20_050) / 100) % 2, false, i);
+                } else if (i % 1000 == 10) {
+                    // Group record, one out of two is nested
+                    dos.writeByte(3);
+                    if (i % 2000 == 10) {
+                        dos.writeInt(2);
+                        writeCachedString(dos, cache, "Outer");
+                    } else {
+                        dos.writeInt(1);
+                    }
+                    writeCachedString(dos, cache, "Group " + (i % 3));
+                    dos.writeInt(i);
+                    dos.writeInt(i + 10);
+                    dos.writeInt(10);
+                    dos.writeByte(1);
+                } else if (i % 1000 == 20) {
+                    // Error record
+                    dos.writeByte(4);
+                    writeCachedString(dos, cache, "Crash " + (i % 7));
+                    dos.writeInt(i);
+                } else {
+                    dos.writeByte(1);
+                    dos.writeInt(0);
+                    writeCachedString(dos, cache, "Request " + (i % 37));
+                    dos.writeInt(i);
+                    dos.writeInt(i + (i % 500));
+                    boolean success = i % 13 != 0;
+                    dos.writeBoolean(success);
+                    writeCachedString(dos, cache, success ? "" : "status.find.is(200) " + (i % 11));
+                    requests++;
+                }
+            }
+        }
+
+        return requests;
+    }
+
+    @Test
+    public void testParseRequestRecordsWithoutAllocation() throws Exception {
+        File testFile = File.createTempFile("test_allocation", ".log");
+        testFile.deleteOnExit();
+        int requests = writeSimulation(testFile, 200_000);
+
+        SimulationParserBinary parser = new SimulationParserBinary(testFile);
+        long[] checksum = new long[1];
+        SimulationContext context = new SimulationContext(testFile.getAbsolutePath(), null) {
+            @Override
+            public void addRequest(int requestId, long start, long end, boolean success) {
+                checksum[0] += end - start + requestId + (success ? 1 : 0);
+            }
+        };
+        // warm up the jit
+        for (int i = 0; i < 3; i++) {
+            parseRecords(parser, testFile, context);
+        }
+        ThreadMXBean bean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long before = bean.getThreadAllocatedBytes(threadId);
+        parseRecords(parser, testFile, context);
+        long allocated = bean.getThreadAllocatedBytes(threadId) - before;
+        Assert.assertTrue(checksum[0] > 0);
+        Assert.assertEquals(37, context.getRequests().size());
+        // only the reader, the run header and the request names are allocated, not a single object per record
+        Assert.assertTrue("Allocated " + allocated + " bytes for " + requests + " requests", allocated < 64 * 1024);
+    }
+
+    protected void parseRecords(SimulationParserBinary parser, File file, SimulationContext context)
+            throws IOException {
+        try (BinarySimulationReader reader = new MappedBinarySimulationReader(file)) {
+            parser.parseRunHeader(reader, context);
+            parser.parseRecords(reader, context);
+        }
+    }
+
+    private void writeUser(DataOutputStream dos, int scenario, boolean start, int timestamp) throws IOException {
+        dos.writeByte(2);
+        dos.writeInt(scenario);
+        dos.writeBoolean(start);
+        dos.writeInt(timestamp);
+    }
+
+    private void writeCachedString(DataOutputStream dos, Map<String, Integer> cache, String str) throws IOException {
+        Integer index = cache.get(str);
+        if (index != null) {
+            dos.writeInt(-index);
+            return;
+        }
+        index = cache.size() + 1;
+        cache.put(str, index);
+        dos.writeInt(index);
+        writeString(dos, str);
+    }
+
     private void writeString(DataOutputStream dos, String str) throws IOException {
         if (str == null || str.isEmpty()) {
             dos.writeInt(0);
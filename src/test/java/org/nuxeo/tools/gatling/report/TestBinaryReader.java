@@ -14,6 +14,7 @@
 package org.nuxeo.tools.gatling.report;
 
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -111,6 +112,63 @@ public class TestBinaryReader {
         }
     }
 
+    @Test
+    public void testReadCachedStringsOutOfOrder() throws IOException {
+        File binaryFile = tempFolder.newFile("test_cached_strings_order.bin");
+        try (DataOutputStream dos = new DataOutputStream(new FileOutputStream(binaryFile))) {
+            for (int index : new int[] { 1000, 2 }) {
+                byte[] bytes = ("String " + index).getBytes(StandardCharsets.UTF_8);
+                dos.writeInt(index);
+                dos.writeInt(bytes.length);
+                dos.write(bytes);
+                dos.writeByte((byte) 0);
+            }
+            dos.writeInt(-2);
+            dos.writeInt(-1000);
+            dos.writeInt(-3);
+        }
+
+        try (BinarySimulationReader reader = new BinarySimulationReader(binaryFile)) {
+            Assert.assertEquals("String 1000", reader.readCachedString());
+            Assert.assertEquals(2, reader.readCachedStringId());
+            Assert.assertEquals("String 2", reader.readCachedString());
+            Assert.assertEquals("String 1000", reader.readCachedString());
+            try {
+                reader.readCachedString();
+                Assert.fail("Should fail on an undefined cache index");
+            } catch (IOException e) {
+                Assert.assertEquals("Cached string missing for index: 3", e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testReferenceSkippedCachedString() throws IOException {
+        File binaryFile = tempFolder.newFile("test_skipped_cached_strings.bin");
+        byte[] bytes = "Skipped".getBytes(StandardCharsets.UTF_8);
+        try (DataOutputStream dos = new DataOutputStream(new FileOutputStream(binaryFile))) {
+            dos.writeInt(1);
+            dos.writeInt(bytes.length);
+            dos.write(bytes);
+            dos.writeByte((byte) 0);
+            dos.writeInt(2);
+            dos.writeInt(0);
+            dos.writeInt(-1);
+            dos.writeInt(-2);
+        }
+
+        for (BinarySimulationReader reader : new BinarySimulationReader[] { new BinarySimulationReader(binaryFile),
+                new MappedBinarySimulationReader(binaryFile) }) {
+            try (BinarySimulationReader r = reader) {
+                r.skipCachedString();
+                r.skipCachedString();
+                Assert.assertEquals("Skipped", r.readCachedString());
+                Assert.assertEquals("", r.readCachedString());
+                Assert.assertFalse(r.hasMore());
+            }
+        }
+    }
+
     @Test
     public void testSkipMethods() throws IOException {
         File binaryFile = tempFolder.newFile("test_skip.bin");
@@ -136,4 +194,56 @@ public class TestBinaryReader {
             Assert.assertEquals("Should read correct value after skips", 999, reader.readInt());
         }
     }
+
+    @Test
+    public void testMappedReaderAcrossWindows() throws IOException {
+        File binaryFile = tempFolder.newFile("test_mapped.bin");
+        String testString = "Mapped String";
+        byte[] bytes = testString.getBytes(StandardCharsets.UTF_8);
+        int records = 100;
+        try (DataOutputStream dos = new DataOutputStream(new FileOutputStream(binaryFile))) {
+            for (int i = 0; i < records; i++) {
+                dos.writeByte((byte) 1);
+                dos.writeInt(i);
+                dos.writeLong(9876543210L + i);
+                dos.writeBoolean(i % 2 == 0);
+                // cached string, defined by the first record
+                if (i == 0) {
+                    dos.writeInt(1);
+                    dos.writeInt(bytes.length);
+                    dos.write(bytes);
+                    dos.writeByte((byte) 0);
+                } else {
+                    dos.writeInt(-1);
+                }
+                dos.writeInt(5);
+                dos.write("Hello".getBytes(StandardCharsets.UTF_8));
+                dos.writeByte((byte) 0);
+            }
+        }
+
+        // a tiny window makes values straddle the window boundaries
+        try (BinarySimulationReader reader = new MappedBinarySimulationReader(binaryFile, 7)) {
+            for (int i = 0; i < records; i++) {
+                Assert.assertTrue(reader.hasMore());
+                Assert.assertEquals(1, reader.readByte());
+                Assert.assertEquals(i, reader.readInt());
+                Assert.assertEquals(9876543210L + i, reader.readLong());
+                Assert.assertEquals(i % 2 == 0, reader.readBoolean());
+                Assert.assertEquals(testString, reader.readCachedString());
+                if (i % 2 == 0) {
+                    reader.skipString();
+                } else {
+                    Assert.assertEquals("Hello", reader.readString());
+                }
+            }
+            Assert.assertFalse(reader.hasMore());
+            try {
+                reader.readInt();
+                Assert.fail("Should not read after the end of the file");
+            } catch (EOFException e) {
+                // expected
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,106 @@
+/*
+ * (C) Copyright 2026 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package org.nuxeo.tools.gatling.report;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestHistogram {
+
+    @Test
+    public void testSmallValuesAreExact() {
+        Histogram histogram = new Histogram(3);
+        for (int i = 1; i <= 1000; i++) {
+            histogram.add(i);
+        }
+        Assert.assertEquals(1000, histogram.getTotalCount());
+        Assert.assertEquals(1, histogram.getMin());
+        Assert.assertEquals(1000, histogram.getMax());
+        Assert.assertEquals(500.5, histogram.getMean(), 0);
+        Assert.assertEquals(500, histogram.getValueAtPercentile(50));
+        Assert.assertEquals(990, histogram.getValueAtPercentile(99));
+        Assert.assertEquals(1000, histogram.getValueAtPercentile(100));
+        Assert.assertEquals(1, histogram.getValueAtPercentile(0));
+    }
+
+    @Test
+    public void testRelativeErrorIsBounded() {
+        Random random = new Random(42);
+        long[] values = new long[100_000];
+        Histogram histogram = new Histogram(2);
+        for (int i = 0; i < values.length; i++) {
+            // log-normal like distribution of response times up to minutes
+            values[i] = (long) Math.exp(random.nextGaussian() * 2 + 6);
+            histogram.add(values[i]);
+        }
+        Arrays.sort(values);
+        int length = histogram.counts.length;
+        for (double percentile : new double[] { 10, 50, 90, 95, 99, 99.9 }) {
+            long expected = values[(int) Math.round(percentile / 100 * values.length) - 1];
+            long actual = histogram.getValueAtPercentile(percentile);
+            Assert.assertTrue("p" + percentile + " " + actual + " for " + expected, actual >= expected);
+            Assert.assertTrue("p" + percentile + " " + actual + " for " + expected,
+                    actual - expected <= expected / 100);
+        }
+        // the memory depends on the highest value, not on the number of values
+        for (int i = 0; i < 100_000; i++) {
+            histogram.add(values[i]);
+        }
+        Assert.assertEquals(length, histogram.counts.length);
+    }
+
+    @Test
+    public void testMerge() {
+        Histogram first = new Histogram(3);
+        Histogram second = new Histogram(3);
+        Histogram all = new Histogram(3);
+        for (int i = 0; i < 10_000; i++) {
+            long value = i * 37L % 100_000;
+            (i % 2 == 0 ? first : second).add(value);
+            all.add(value);
+        }
+        second.add(10_000_000);
+        all.add(10_000_000);
+        first.merge(second);
+        Assert.assertEquals(all.getTotalCount(), first.getTotalCount());
+        Assert.assertEquals(all.getMin(), first.getMin());
+        Assert.assertEquals(all.getMax(), first.getMax());
+        Assert.assertEquals(all.getMean(), first.getMean(), 0);
+        Assert.assertEquals(all.getStdDeviation(), first.getStdDeviation(), 0.0001);
+        Assert.assertEquals(all.getValueAtPercentile(95), first.getValueAtPercentile(95));
+    }
+
+    @Test
+    public void testValuesAtPercentilesInOneSweep() {
+        Histogram histogram = new Histogram(3);
+        Assert.assertArrayEquals(new long[2], histogram.getValuesAtPercentiles(new double[] { 50, 99 }));
+        Random random = new Random(3);
+        for (int i = 0; i < 10_000; i++) {
+            histogram.add(random.nextInt(100_000));
+        }
+        double[] percentiles = { 0.1, 50, 50, 75, 99.9, 99.99, 100 };
+        long[] values = histogram.getValuesAtPercentiles(percentiles);
+        for (int i = 0; i < percentiles.length; i++) {
+            Assert.assertEquals(histogram.getValueAtPercentile(percentiles[i]), values[i]);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidDigits() {
+        new Histogram(6);
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * (C) Copyright 2026 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package org.nuxeo.tools.gatling.report;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.math3.stat.StatUtils;
+import org.apache.commons.math3.stat.descriptive.moment.StandardDeviation;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestIntSamples {
+
+    @Test
+    public void testGrowAndMerge() {
+        IntSamples samples = new IntSamples();
+        for (int i = 0; i < 1000; i++) {
+            samples.add(i);
+        }
+        IntSamples other = new IntSamples();
+        other.add(-1);
+        other.add(Integer.MAX_VALUE);
+        samples.addAll(other);
+        Assert.assertEquals(1002, samples.size());
+        Assert.assertEquals(999, samples.get(999));
+        Assert.assertEquals(Integer.MAX_VALUE, samples.get(1001));
+        double[] values = samples.toDoubleArray();
+        Assert.assertEquals(1002, values.length);
+        Assert.assertEquals(-1.0, values[1000], 0);
+    }
+
+    @Test
+    public void testPercentilesOfSortedRuns() {
+        Random random = new Random(3);
+        IntSamples expected = new IntSamples();
+        List<IntSamples> runs = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            IntSamples run = new IntSamples();
+            // includes empty runs and duplicates
+            for (int j = random.nextInt(i * 300 + 1); j > 0; j--) {
+                int value = random.nextInt(500);
+                run.add(value);
+                expected.add(value);
+            }
+            run.sort();
+            runs.add(run);
+        }
+        expected.sort();
+        double[] percentiles = { 0, 0.01, 1, 25, 50, 90, 95, 99, 99.99, 100 };
+        double[] values = IntSamples.percentiles(runs, percentiles);
+        for (int i = 0; i < percentiles.length; i++) {
+            Assert.assertEquals("p" + percentiles[i], expected.percentile(percentiles[i]), values[i], 0);
+        }
+        Assert.assertTrue(Double.isNaN(IntSamples.percentiles(Collections.emptyList(), 50)[0]));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testPercentilesRequireSortedRuns() {
+        IntSamples run = new IntSamples();
+        run.add(2);
+        run.add(1);
+        IntSamples.percentiles(Collections.singletonList(run), 50);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetOutOfBounds() {
+        IntSamples samples = new IntSamples();
+        samples.add(1);
+        samples.get(1);
+    }
+
+    @Test
+    public void testRenderAsJavascriptArray() {
+        IntSamples samples = new IntSamples();
+        Assert.assertEquals("[]", samples.toString());
+        samples.add(12);
+        samples.add(7);
+        Assert.assertEquals("[12, 7]", samples.toString());
+    }
+
+    @Test
+    public void testPercentilesMatchCommonsMath() {
+        Random random = new Random(7);
+        for (int size : new int[] { 1, 2, 3, 10, 99, 1000, 12345 }) {
+            IntSamples samples = new IntSamples();
+            for (int i = 0; i < size; i++) {
+                samples.add(random.nextInt(5000));
+            }
+            double[] values = samples.toDoubleArray();
+            samples.sort();
+            for (double p : new double[] { 0.1, 1, 25, 50, 90, 95, 99, 99.9, 100 }) {
+                Assert.assertEquals("p" + p + " of " + size, StatUtils.percentile(values, p), samples.percentile(p),
+                        0);
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testPercentileRequiresSortedSamples() {
+        IntSamples samples = new IntSamples();
+        samples.add(2);
+        samples.add(1);
+        samples.percentile(50);
+    }
+
+    @Test
+    public void testRequestStatMatchesCommonsMath() {
+        Random random = new Random(11);
+        RequestStat stat = new RequestStat("sim", "scn", "request", 0, null);
+        for (int i = 0; i < 5000; i++) {
+            stat.add(i, i + random.nextInt(2000), true);
+        }
+        double[] values = stat.durations.toDoubleArray();
+        stat.computeStat(1.0, 1);
+        double mean = StatUtils.mean(values);
+        Assert.assertEquals((long) StatUtils.min(values), stat.min);
+        Assert.assertEquals((long) StatUtils.max(values), stat.max);
+        Assert.assertEquals(mean, stat.avg, 1e-9);
+        Assert.assertEquals((long) StatUtils.percentile(values, 50), stat.p50);
+        Assert.assertEquals((long) StatUtils.percentile(values, 90), stat.p90);
+        Assert.assertEquals((long) StatUtils.percentile(values, 95), stat.p95);
+        Assert.assertEquals((long) StatUtils.percentile(values, 99), stat.p99);
+        Assert.assertEquals((long) new StandardDeviation().evaluate(values, mean), stat.stddev);
+    }
+}
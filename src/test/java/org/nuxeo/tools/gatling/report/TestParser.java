@@ -16,14 +16,37 @@
  */
 package org.nuxeo.tools.gatling.report;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 
+import org.apache.commons.io.IOUtils;
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.ParameterException;
+import com.sun.management.ThreadMXBean;
 
 public class TestParser {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
     protected static final String SIM_SMALL_V2_1 = "simulation-small.log";
 
     protected static final String SIM_V2_3 = "simulation-v2.3.log";
@@ -40,6 +63,10 @@ public class TestParser {
 
     protected static final String SIM_SMALL_V3_4 = "simulation-small-v3.4.log";
 
+    protected static final String SIM_SMALL_KO_V3_4 = "simulation-small-ko-v3.4.log";
+
+    protected static final String SIM_SMALL_GROUP_V3_2 = "simulation-small-group-v3.2.log";
+
     protected static final String SIM_V3_5_GZ = "simulation-v3.5.log.gz";
 
     protected static final String SIM_V3_10_GZ = "simulation-v3.10.log.gz";
@@ -107,6 +134,14 @@ public class TestParser {
         Assert.assertTrue(ret.toString().contains("_all"));
     }
 
+    @Test
+    public void parseSimulationReleasesEndedUsers() throws Exception {
+        SimulationParserV32 parser = new SimulationParserV32(getResourceFile(SIM_V3_2_GZ));
+        SimulationContext ret = parser.parse();
+        Assert.assertEquals(16095, ret.getSimStat().getCount());
+        Assert.assertEquals(0, parser.userScenario.size());
+    }
+
     @Test
     public void parseSimpleSimulationVersion34Small() throws Exception {
         SimulationContext ret = ParserFactory.getParser(getResourceFile(SIM_SMALL_V3_4)).parse();
@@ -116,6 +151,210 @@ public class TestParser {
         Assert.assertTrue(ret.toString().contains("_all"));
     }
 
+    @Test
+    public void parseSimulationTopErrors() throws Exception {
+        SimulationContext ret = ParserFactory.getParser(getResourceFile(SIM_SMALL_KO_V3_4)).parse();
+        Assert.assertEquals(21, ret.getSimStat().getCount());
+        Assert.assertEquals(11, ret.getSimStat().errorCount);
+        List<TopErrors.ErrorCount> errors = ret.getSimStat().getTopErrors();
+        Assert.assertEquals(4, errors.size());
+        // same counts are sorted by message
+        Assert.assertEquals("jsonPath($.total).find.is(1), but actually found 0", errors.get(0).getMessage());
+        Assert.assertEquals(5, errors.get(0).getCount());
+        Assert.assertEquals("status.find.is(200), but actually found 500", errors.get(1).getMessage());
+        Assert.assertEquals(5, errors.get(1).getCount());
+        // the ERROR record is only counted in _all
+        Assert.assertTrue(errors.stream().anyMatch(e -> e.getMessage().startsWith("j.n.ConnectException")));
+        RequestStat login = ret.getRequests().stream().filter(r -> "Login".equals(r.request)).findFirst().get();
+        Assert.assertEquals(2, login.getTopErrors().size());
+        Assert.assertEquals(1, login.getTopErrors().get(1).getCount());
+        Assert.assertEquals("Request timeout to \"localhost\" after 60000 ms", login.getTopErrors().get(1).getMessage());
+        // the top errors are not part of the csv, its columns are unchanged
+        Assert.assertTrue(RequestStat.header().endsWith("\trating"));
+        Assert.assertFalse(login.toString().contains("Request timeout"));
+    }
+
+    @Test
+    public void parseSimulationGroups() throws Exception {
+        SimulationContext ret = ParserFactory.getParser(getResourceFile(SIM_SMALL_GROUP_V3_2)).parse();
+        Assert.assertEquals(18, ret.getSimStat().getCount());
+        List<GroupStat> groups = ret.getGroups();
+        Assert.assertEquals(2, groups.size());
+        GroupStat folder = groups.get(0);
+        Assert.assertEquals("Browse,Folder", folder.getGroup());
+        Assert.assertEquals("Navigation", folder.scenario);
+        Assert.assertEquals(6, folder.getCount());
+        Assert.assertEquals(1, folder.errorCount);
+        Assert.assertEquals(230, folder.max);
+        Assert.assertEquals("90.0", folder.averageCumulated());
+        Assert.assertEquals("39.1", folder.cumulatedPercent());
+        GroupStat browse = groups.get(1);
+        Assert.assertEquals("Browse", browse.getGroup());
+        Assert.assertEquals(330, browse.p50);
+        Assert.assertEquals("130.0", browse.averageCumulated());
+        // groups are not requests
+        Assert.assertEquals(3, ret.getRequests().size());
+    }
+
+    @Test
+    public void parseSimulationWithHistogram() throws Exception {
+        SimulationContext exact = ParserFactory.getParser(getResourceFile(SIM_V3_5_GZ)).parse();
+        SimulationContext ret = ParserFactory.getParser(getResourceFile(SIM_V3_5_GZ))
+                                             .setStatsConfig(new StatsConfig().histogram(3))
+                                             .parse();
+        RequestStat expected = exact.getSimStat();
+        RequestStat actual = ret.getSimStat();
+        Assert.assertEquals(expected.count, actual.count);
+        Assert.assertEquals(expected.min, actual.min);
+        Assert.assertEquals(expected.max, actual.max);
+        Assert.assertEquals(expected.avg, actual.avg, 0.001);
+        Assert.assertEquals(expected.p50, actual.p50, 1 + expected.p50 / 100);
+        Assert.assertEquals(expected.p95, actual.p95, 1 + expected.p95 / 100);
+        Assert.assertEquals(expected.p99, actual.p99, 1 + expected.p99 / 100);
+        Assert.assertEquals(expected.stddev, actual.stddev, 1 + expected.stddev / 100);
+        Assert.assertEquals(exact.getRequests().size(), ret.getRequests().size());
+        Assert.assertEquals(101, actual.boxValues().size());
+        Assert.assertNull(actual.durations);
+    }
+
+    @Test
+    public void parseSimulationAllRequestsFromMergedRequests() throws Exception {
+        SimulationContext ret = ParserFactory.getParser(getResourceFile(SIM_V3_5_GZ)).parse();
+        RequestStat all = ret.getSimStat();
+        IntSamples expected = new IntSamples();
+        long count = 0, errors = 0;
+        for (RequestStat request : ret.getRequests()) {
+            expected.addAll(request.durations);
+            count += request.count;
+            errors += request.errorCount;
+        }
+        expected.sort();
+        Assert.assertEquals(count, all.count);
+        Assert.assertEquals(errors, all.errorCount);
+        // the merged samples are not kept
+        Assert.assertEquals(0, all.durations.size());
+        Assert.assertEquals((long) expected.percentile(95), all.p95);
+        for (RequestStat.PercentileValue percentile : all.getPercentiles()) {
+            double p = Double.parseDouble(percentile.getName().substring(1));
+            Assert.assertEquals((long) expected.percentile(p), percentile.getValue());
+        }
+        Assert.assertEquals(101, all.boxValues().size());
+        Assert.assertEquals((int) expected.percentile(25), all.boxValues().get(25));
+        Assert.assertEquals(expected.get(0), all.min);
+        Assert.assertEquals(expected.get(expected.size() - 1), all.max);
+
+        // computing the stats again does not merge the requests twice
+        String stats = ret.toString();
+        ret.computeStat();
+        Assert.assertEquals(count, all.count);
+        Assert.assertEquals(stats, ret.toString());
+    }
+
+    @Test
+    public void parseSimulationSummaryOnly() throws Exception {
+        SimulationContext exact = ParserFactory.getParser(getResourceFile(SIM_V3_5_GZ)).parse();
+        StatsConfig config = new StatsConfig().summaryOnly();
+        SimulationContext ret = ParserFactory.getParser(getResourceFile(SIM_V3_5_GZ)).setStatsConfig(config).parse();
+        RequestStat expected = exact.getSimStat();
+        RequestStat actual = ret.getSimStat();
+        Assert.assertNull(actual.durations);
+        Assert.assertNull(actual.histogram);
+        Assert.assertEquals(expected.count, actual.count);
+        Assert.assertEquals(expected.errorCount, actual.errorCount);
+        Assert.assertEquals(expected.min, actual.min);
+        Assert.assertEquals(expected.max, actual.max);
+        Assert.assertEquals(expected.avg, actual.avg, 0.001);
+        Assert.assertEquals(expected.stddev, actual.stddev);
+        Assert.assertEquals(expected.rps, actual.rps, 0.001);
+        Assert.assertEquals(expected.apdex.getScore(), actual.apdex.getScore(), 0.001);
+        Assert.assertTrue(actual.getPercentiles().isEmpty());
+        Assert.assertEquals(RequestStat.header(config).split("\t").length, actual.toString().split("\t", -1).length);
+        Assert.assertTrue(RequestStat.header(config).contains("\tmin\tmax\t"));
+        for (RequestStat request : ret.getRequests()) {
+            Assert.assertNull(request.durations);
+        }
+    }
+
+    @Test
+    public void parseSimulationSummaryOnlyWithPercentiles() throws Exception {
+        StatsConfig config = new StatsConfig().summaryOnly().percentiles(50, 99);
+        SimulationContext ret = ParserFactory.getParser(getResourceFile(SIM_V3_5_GZ)).setStatsConfig(config).parse();
+        RequestStat actual = ret.getSimStat();
+        Assert.assertNull(actual.durations);
+        Assert.assertNotNull(actual.histogram);
+        Assert.assertEquals(2, actual.getPercentiles().size());
+        Assert.assertEquals(actual.p50, actual.getPercentiles().get(0).getValue());
+        Assert.assertTrue(actual.p50 > 0);
+    }
+
+    @Test
+    public void parseSimulationWithPercentiles() throws Exception {
+        for (StatsConfig config : Arrays.asList(new StatsConfig(), new StatsConfig().histogram(3))) {
+            config.percentiles(99.99, 75, 99.9, 75);
+            SimulationContext ret = ParserFactory.getParser(getResourceFile(SIM_V3_5_GZ))
+                                                 .setStatsConfig(config)
+                                                 .parse();
+            RequestStat stat = ret.getSimStat();
+            List<String> names = stat.getPercentiles()
+                                     .stream()
+                                     .map(RequestStat.PercentileValue::getName)
+                                     .collect(Collectors.toList());
+            Assert.assertEquals(Arrays.asList("p75", "p99.9", "p99.99"), names);
+            long p75 = stat.getPercentiles().get(0).getValue();
+            Assert.assertTrue(stat.p50 <= p75 && p75 <= stat.p90);
+            Assert.assertTrue(stat.getPercentiles().get(2).getValue() <= stat.max);
+            // the csv header and rows have the same columns
+            Assert.assertEquals(RequestStat.header(config).split("\t").length, stat.toString().split("\t", -1).length);
+            Assert.assertTrue(RequestStat.header(config).contains("\tmin\tp75\tp99.9\tp99.99\tmax\t"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseSimulationWithInvalidPercentile() {
+        new StatsConfig().percentiles(50, 100.5);
+    }
+
+    @Test
+    public void parsePercentilesOption() {
+        Options options = new Options();
+        new JCommander(options, "--percentiles", "99.9, 50", "simulation.log");
+        Assert.assertArrayEquals(new double[] { 99.9, 50 }, options.percentiles, 0);
+    }
+
+    @Test
+    public void parseInvalidPercentilesOption() {
+        for (String percentiles : Arrays.asList("50,abc", "0", "50,101", "")) {
+            try {
+                new JCommander(new Options(), "--percentiles", percentiles, "simulation.log");
+                Assert.fail("Should reject " + percentiles);
+            } catch (ParameterException e) {
+                Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Invalid --percentiles"));
+            }
+        }
+    }
+
+    @Test
+    public void parseFromTheFactoryReader() throws Exception {
+        SimulationParser parser = ParserFactory.getParser(getResourceFile(SIM_V3_5_GZ));
+        // the header was read on the stream handed to the parser
+        Assert.assertNotNull(parser.reader);
+        SimulationContext ret = parser.parse();
+        Assert.assertNull(parser.reader);
+        // a second parse opens the file again
+        Assert.assertEquals(ret.toString(), parser.parse().toString());
+        Assert.assertEquals(16095, ret.getSimStat().getCount());
+    }
+
+    @Test
+    public void closeUnparsedFactoryReader() throws Exception {
+        SimulationParser parser;
+        try (SimulationParser ret = ParserFactory.getParser(getResourceFile(SIM_V3_5_GZ))) {
+            parser = ret;
+            Assert.assertNotNull(parser.reader);
+        }
+        Assert.assertNull(parser.reader);
+    }
+
     @Test
     public void parseSimpleSimulationVersion35() throws Exception {
         SimulationContext ret = ParserFactory.getParser(getResourceFile(SIM_V3_5_GZ)).parse();
@@ -134,6 +373,166 @@ public class TestParser {
         Assert.assertTrue(ret.toString().contains("_all"));
     }
 
+    @Test
+    public void parseSimulationInParallel() throws Exception {
+        for (String name : Arrays.asList(SIM_GZ, SIM_V2_3, SIM_V3_2_GZ, SIM_SMALL_V3_4, SIM_V3_5_GZ, SIM_V3_10_GZ)) {
+            File file = getUncompressedFile(name);
+            StatsConfig config = new StatsConfig().timeBucket(TimeSeries.DEFAULT_BUCKET_WIDTH);
+            SimulationContext expected = ParserFactory.getParser(file).setStatsConfig(config).parse();
+            SimulationContext ret = ParserFactory.getParser(file).setStatsConfig(config).setThreads(4).parse();
+            Assert.assertEquals(name, expected.toString(), ret.toString());
+            Assert.assertEquals(name, expected.maxUsers, ret.maxUsers);
+            Assert.assertEquals(name, expected.getTimeSeries().toString(), ret.getTimeSeries().toString());
+        }
+    }
+
+    @Test
+    public void mergeChunkWithOnlyEndedUsers() {
+        SimulationContext ret = new SimulationContext("sim.log", null);
+        ret.addUser("scn");
+        ret.addUser("scn");
+        // users started in a previous chunk end during the ramp down
+        SimulationContext rampDown = new SimulationContext("sim.log", null).setPartial(true);
+        rampDown.endUser("scn");
+        rampDown.endUser("scn");
+        SimulationContext next = new SimulationContext("sim.log", null).setPartial(true);
+        next.addUser("scn");
+        ret.merge(rampDown);
+        ret.merge(next);
+        Assert.assertEquals(2, ret.users.get("scn").getMax());
+        Assert.assertEquals(1, ret.users.get("scn").current);
+    }
+
+    @Test
+    public void parseSimulationTimeSeries() throws Exception {
+        SimulationContext ret = ParserFactory.getParser(getResourceFile(SIM_V3_5_GZ))
+                                             .setStatsConfig(new StatsConfig().timeBucket(10_000))
+                                             .parse();
+        Assert.assertTrue(ret.hasTimeSeries());
+        List<TimeSeries.Bucket> buckets = ret.getTimeSeries().getBuckets();
+        Assert.assertEquals(ret.getSimStat().count, buckets.stream().mapToLong(TimeSeries.Bucket::getCount).sum());
+        Assert.assertEquals(ret.getSimStat().max, buckets.stream().mapToLong(TimeSeries.Bucket::getMax).max().getAsLong());
+        Assert.assertEquals(ret.start, buckets.get(0).getStart());
+        Assert.assertEquals(ret.maxUsers, buckets.stream().mapToInt(TimeSeries.Bucket::getActiveUsers).max().getAsInt());
+        Assert.assertEquals(TimeSeries.header(ret.config).split("\t").length,
+                buckets.get(0).toString().split("\t", -1).length);
+
+        // disabled by default
+        SimulationContext disabled = ParserFactory.getParser(getResourceFile(SIM_V3_5_GZ))
+                                                  .setStatsConfig(new StatsConfig())
+                                                  .parse();
+        Assert.assertFalse(disabled.hasTimeSeries());
+        Assert.assertEquals(ret.toString(), disabled.toString());
+    }
+
+    @Test
+    public void parseCompressedSimulationWithInflaterThread() throws Exception {
+        File file = getResourceFile(SIM_V3_5_GZ);
+        SimulationContext expected = ParserFactory.getParser(file).parse();
+        SimulationContext ret = ParserFactory.getParser(file).setThreads(2).parse();
+        Assert.assertEquals(expected.toString(), ret.toString());
+
+        byte[] content;
+        try (InputStream input = Utils.getInputStreamFor(file)) {
+            content = IOUtils.toByteArray(input);
+        }
+        InputStream gzip = new GZIPInputStream(new FileInputStream(file));
+        try (InputStream input = new PipelinedGzipInputStream(gzip, 1000, 2)) {
+            Assert.assertArrayEquals(content, IOUtils.toByteArray(input));
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void inflaterFailureIsRethrown() throws Exception {
+        InputStream failing = new InputStream() {
+            @Override
+            public int read() {
+                throw new IllegalStateException("corrupted");
+            }
+        };
+        try (InputStream input = new PipelinedGzipInputStream(failing, 1000, 2)) {
+            input.read();
+            Assert.fail("the inflater failure should be rethrown");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void parseRequestRecordsWithoutAllocation() throws Exception {
+        int records = 200_000;
+        StringBuilder content = new StringBuilder("RUN\tSim\tsim\t1567446796962\t \t3.5.0\n");
+        for (int i = 0; i < records; i++) {
+            content.append("REQUEST\t\tRequest ").append(i % 10).append('\t').append(1567446797000L + i).append('\t')
+                   .append(1567446797100L + i).append(i % 7 == 0 ? "\tKO\tstatus.find.is(200)\n" : "\tOK\t \n");
+        }
+        byte[] bytes = content.toString().getBytes(StandardCharsets.UTF_8);
+        SimulationParser parser = new SimulationParserV35(new File(SIM_V3_5_GZ));
+        long[] checksum = new long[1];
+        SimulationContext context = new SimulationContext(SIM_V3_5_GZ, null) {
+            @Override
+            public void addRequest(int requestId, long start, long end, boolean success) {
+                checksum[0] += end - start + requestId + (success ? 1 : 0);
+            }
+        };
+        // warm up the pool and the jit
+        for (int i = 0; i < 3; i++) {
+            parseRecords(parser, bytes, context);
+        }
+        ThreadMXBean bean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long before = bean.getThreadAllocatedBytes(threadId);
+        parseRecords(parser, bytes, context);
+        long allocated = bean.getThreadAllocatedBytes(threadId) - before;
+        Assert.assertTrue(checksum[0] > 0);
+        // request names are resolved once to an id
+        Assert.assertEquals(10, context.reqStats.size());
+        // the reader and its buffer are the only allocations
+        Assert.assertTrue("Allocated " + allocated + " bytes for " + records + " records",
+                allocated < SimulationReader.DEFAULT_BUFFER_SIZE + 16 * 1024);
+    }
+
+    @Test
+    public void parseErrorRecordsWithoutPoolingTheMessage() throws Exception {
+        StringBuilder content = new StringBuilder("RUN\tSim\t\tsim\t1526391734662\tnull\t2.0\n");
+        content.append("USER\tscn\t1\tSTART\t1526391735084\t1526391735084\n");
+        content.append("REQUEST\tscn\t1\t\tLogin\t1526391735100\t1526391735200\tOK\t \n");
+        for (int i = 0; i < 1000; i++) {
+            content.append("ERROR\tConnection refused ").append(i).append('\t').append(1526391735300L + i).append('\n');
+        }
+        StringPool pool = new StringPool();
+        int keywords = pool.size();
+        SimulationContext context = new SimulationContext(SIM_V2_3, null);
+        try (SimulationReader reader = new SimulationReader(
+                new ByteArrayInputStream(content.toString().getBytes(StandardCharsets.UTF_8)), pool)) {
+            reader.readNext();
+            new SimulationParserV23(new File(SIM_V2_3)).parseRecords(reader, context);
+        }
+        Assert.assertEquals(1, context.reqStats.size());
+        Assert.assertEquals("scn", context.reqStats.get("Login").scenario);
+        // only the scenario and the request name are pooled
+        Assert.assertTrue("Pool size " + pool.size(), pool.size() <= keywords + 2);
+    }
+
+    protected void parseRecords(SimulationParser parser, byte[] bytes, SimulationContext context) throws IOException {
+        try (SimulationReader reader = new SimulationReader(new ByteArrayInputStream(bytes))) {
+            reader.readNext();
+            parser.parseRecords(reader, context);
+        }
+    }
+
+    protected File getUncompressedFile(String filename) throws IOException {
+        File file = getResourceFile(filename);
+        if (!Utils.isCompressed(file)) {
+            return file;
+        }
+        File ret = tempFolder.newFile(filename.replace(".gz", ""));
+        try (InputStream input = Utils.getInputStreamFor(file)) {
+            Files.copy(input, ret.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return ret;
+    }
+
     protected File getResourceFile(String filename) throws FileNotFoundException {
         ClassLoader classLoader = getClass().getClassLoader();
         if (classLoader.getResource(filename) == null) {
@@ -34,6 +34,8 @@ public class TestReport {
 
     protected static final String SIM_GZ = "simulation-1.log.gz";
 
+    protected static final String SIM_KO = "simulation-small-ko-v3.4.log";
+
     protected static final List<String> SIMS_GZ = Arrays.asList("simulation.log.1.gz", "simulation.log.2.gz",
             "simulation.log.3.gz", "simulation.log.4.gz");
 
@@ -47,6 +49,16 @@ public class TestReport {
         Assert.assertTrue(writer.toString().contains("simulation sim50bench"));
     }
 
+    @Test
+    public void generateSimulationReportWithErrorRecords() throws Exception {
+        List<SimulationContext> stats = Collections.singletonList(ParserFactory.getParser(getResourceFile(SIM_KO)).parse());
+        Writer writer = new StringWriter();
+        new Report(stats).setWriter(writer).create();
+        // the ERROR records are not related to a request but are listed in the top errors
+        Assert.assertTrue(writer.toString().contains("<td>j.n.ConnectException: Connection refused</td>"));
+        Assert.assertTrue(writer.toString().contains("status.find.is(200), but actually found 500"));
+    }
+
     @Test
     public void generateTrendReport() throws Exception {
         List<SimulationContext> stats = new ArrayList<>(SIMS_GZ.size());
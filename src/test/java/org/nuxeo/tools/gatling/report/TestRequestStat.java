@@ -0,0 +1,80 @@
+/*
+ * (C) Copyright 2026 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package org.nuxeo.tools.gatling.report;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.commons.math3.stat.descriptive.moment.StandardDeviation;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestRequestStat {
+
+    @Test
+    public void testStreamingMomentsAreMerged() {
+        Random random = new Random(5);
+        RequestStat all = new RequestStat("sim", "scn", "request", 0, null);
+        RequestStat first = new RequestStat("sim", "scn", "request", 0, null);
+        RequestStat second = new RequestStat("sim", "scn", "request", 0, null);
+        double[] values = new double[3000];
+        for (int i = 0; i < values.length; i++) {
+            int duration = random.nextInt(i < 1000 ? 100 : 5000);
+            values[i] = duration;
+            all.add(i, i + duration, true);
+            (i < 1000 ? first : second).add(i, i + duration, true);
+        }
+        first.merge(second);
+        // merging into an empty stat keeps the moments
+        RequestStat merged = new RequestStat("sim", "scn", "request", 0, null);
+        merged.merge(first);
+        double expected = new StandardDeviation().evaluate(values);
+        Assert.assertEquals(expected, all.getStandardDeviation(), 1e-9);
+        Assert.assertEquals(expected, merged.getStandardDeviation(), 1e-9);
+        Assert.assertEquals(all.min, merged.min);
+        Assert.assertEquals(all.max, merged.max);
+        Assert.assertEquals(all.sum, merged.sum);
+    }
+
+    @Test
+    public void testStreamingMomentsAreStable() {
+        // large durations with a small spread lose precision with a sum of squares
+        RequestStat stat = new RequestStat("sim", "scn", "request", 0, null);
+        long offset = 1_000_000_000L;
+        double[] deviations = new double[100_000];
+        for (int i = 0; i < deviations.length; i++) {
+            stat.add(0, offset + i % 3, true);
+            deviations[i] = i % 3;
+        }
+        stat.computeStat(1.0, 1);
+        Assert.assertEquals(new StandardDeviation().evaluate(deviations), stat.getStandardDeviation(), 1e-6);
+        Assert.assertEquals(offset, stat.min);
+        Assert.assertEquals(offset + 2, stat.max);
+    }
+
+    @Test
+    public void testMomentsWithoutSamples() {
+        for (StatsConfig config : Arrays.asList(new StatsConfig().histogram(2), new StatsConfig().summaryOnly())) {
+            RequestStat stat = new RequestStat("sim", "scn", "request", 0, null, config);
+            stat.add(0, 10, true);
+            stat.add(0, 30, false);
+            stat.computeStat(1.0, 1);
+            Assert.assertNull(stat.durations);
+            Assert.assertEquals(20.0, stat.avg, 0);
+            Assert.assertEquals(14, stat.stddev);
+            Assert.assertEquals(10, stat.min);
+            Assert.assertEquals(30, stat.max);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * (C) Copyright 2026 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package org.nuxeo.tools.gatling.report;
+
+import java.util.function.IntToDoubleFunction;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestSaturationCurve {
+
+    protected static final long ORIGIN = 1_000_000;
+
+    protected static final int STEP_BUCKETS = 5;
+
+    /**
+     * Simulates a step ramp adding a user every few buckets, each bucket has the requests of the throughput of its
+     * number of users, the response time grows with the queue behind the throughput.
+     */
+    protected TimeSeries stepRamp(int maxUsers, IntToDoubleFunction throughput) {
+        return stepRamp(maxUsers, throughput, users -> 1000.0 * users / throughput.applyAsDouble(users));
+    }
+
+    protected TimeSeries stepRamp(int maxUsers, IntToDoubleFunction throughput, IntToDoubleFunction latency) {
+        TimeSeries ret = new TimeSeries(1000, new double[] { 95 });
+        ret.setOrigin(ORIGIN);
+        for (int users = 1; users <= maxUsers; users++) {
+            long stepStart = ORIGIN + (users - 1) * STEP_BUCKETS * 1000L;
+            ret.addUser("scn", stepStart);
+            long requests = Math.round(throughput.applyAsDouble(users));
+            long duration = Math.round(latency.applyAsDouble(users));
+            for (int bucket = 0; bucket < STEP_BUCKETS; bucket++) {
+                long bucketStart = stepStart + bucket * 1000L;
+                for (int i = 0; i < requests; i++) {
+                    ret.add(bucketStart + i, bucketStart + i + duration, true);
+                }
+            }
+        }
+        // the end of the simulation
+        ret.endUser("scn", ORIGIN + maxUsers * STEP_BUCKETS * 1000L);
+        return ret;
+    }
+
+    protected static double usl(int users, double lambda, double sigma, double kappa) {
+        return lambda * users / (1 + sigma * (users - 1) + kappa * users * (users - 1));
+    }
+
+    @Test
+    public void testFitUniversalScalabilityLaw() {
+        SaturationCurve curve = new SaturationCurve(stepRamp(40, users -> usl(users, 100, 0.05, 0.002)));
+        Assert.assertTrue(curve.hasLevels());
+        Assert.assertEquals(40, curve.getLevels().size());
+        Assert.assertEquals(STEP_BUCKETS, curve.getLevels().get(0).getBuckets());
+        Assert.assertTrue(curve.isFitted());
+        Assert.assertEquals(100, curve.getLambda(), 1);
+        Assert.assertEquals(0.05, curve.getSigma(), 0.005);
+        Assert.assertEquals(0.002, curve.getKappa(), 0.0002);
+        // sqrt((1 - 0.05) / 0.002)
+        Assert.assertEquals(21.8, curve.getPeakUsers(), 1);
+
+        Assert.assertTrue(curve.hasKnee());
+        SaturationCurve.Level knee = curve.getKnee();
+        Assert.assertTrue(knee.getUsers() > 3 && knee.getUsers() < 22);
+        // the response time climbs after the knee
+        long lastLatency = curve.getLevels().get(39).getLatency();
+        Assert.assertTrue(lastLatency > 2 * knee.getLatency());
+    }
+
+    @Test
+    public void testLinearScalingHasNoKnee() {
+        SaturationCurve curve = new SaturationCurve(stepRamp(10, users -> 50.0 * users));
+        Assert.assertTrue(curve.isFitted());
+        Assert.assertEquals(0, curve.getSigma(), 0.001);
+        Assert.assertEquals(0, curve.getKappa(), 0.001);
+        Assert.assertFalse(curve.hasKnee());
+        Assert.assertEquals("null", curve.peakUsers());
+        Assert.assertEquals("[1.0, 2.0, 3.0, 4.0, 5.0, 6.0, 7.0, 8.0, 9.0, 10.0]", curve.users());
+    }
+
+    @Test
+    public void testSteadyLatencyHasNoKnee() {
+        // the throughput stops scaling but the response time does not climb, the load is not saturating
+        SaturationCurve curve = new SaturationCurve(
+                stepRamp(40, users -> usl(users, 100, 0.05, 0.002), users -> 100));
+        Assert.assertTrue(curve.isFitted());
+        Assert.assertFalse(curve.hasKnee());
+    }
+
+    @Test
+    public void testContinuousRampIsBinned() {
+        TimeSeries series = new TimeSeries(1000, new double[] { 95 });
+        series.setOrigin(ORIGIN);
+        // a user starts every bucket
+        for (int i = 0; i < 500; i++) {
+            long start = ORIGIN + i * 1000L;
+            series.addUser("scn", start);
+            for (int j = 0; j <= i; j++) {
+                series.add(start + j, start + j + 10, true);
+            }
+        }
+        series.endUser("scn", ORIGIN + 500_000L);
+        SaturationCurve curve = new SaturationCurve(series);
+        Assert.assertEquals(SaturationCurve.MAX_LEVELS, curve.getLevels().size());
+        SaturationCurve.Level first = curve.getLevels().get(0);
+        // 1 to 10 users
+        Assert.assertEquals(10, first.getBuckets());
+        Assert.assertEquals(5.5, first.getUsers(), 0.001);
+        Assert.assertEquals("5.5", first.users());
+    }
+
+    @Test
+    public void testConcaveRampHasNoNegativeCoefficient() {
+        // the throughput per user increases, the unconstrained fit has a negative contention and a pole
+        SaturationCurve curve = new SaturationCurve(stepRamp(85, users -> 50 + 0.1 * users + 0.0045 * users * users));
+        Assert.assertTrue(curve.isFitted());
+        Assert.assertTrue(curve.getSigma() >= 0);
+        Assert.assertTrue(curve.getKappa() >= 0);
+        for (SaturationCurve.Level level : curve.getLevels()) {
+            Assert.assertTrue(level.fittedThroughput(), Double.parseDouble(level.fittedThroughput()) > 0);
+        }
+        double peakUsers = curve.getPeakUsers();
+        Assert.assertTrue(Double.isNaN(peakUsers) || peakUsers > 0 && curve.getFittedThroughput(peakUsers) > 0);
+    }
+
+    @Test
+    public void testNotEnoughLevels() {
+        SaturationCurve curve = new SaturationCurve(stepRamp(2, users -> 10.0 * users));
+        Assert.assertFalse(curve.hasLevels());
+        Assert.assertFalse(curve.isFitted());
+        Assert.assertFalse(curve.hasKnee());
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * (C) Copyright 2026 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package org.nuxeo.tools.gatling.report;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestSimulationReader {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testTokenizeLines() throws IOException {
+        try (SimulationReader reader = getReader("ASSERTION\tAAEC\nRUN\tsim\t \t3.5.0\r\nREQUEST\t\tGet été\t1\t2\tOK")) {
+            SimulationLine line = reader.readNext();
+            Assert.assertEquals(Arrays.asList("RUN", "sim", "", "3.5.0"), line.toList());
+            line = reader.readNext();
+            Assert.assertEquals(6, line.size());
+            Assert.assertTrue(line.is(0, "REQUEST"));
+            Assert.assertTrue(line.is(5, "OK"));
+            Assert.assertEquals("", line.get(1));
+            Assert.assertEquals("Get été", line.intern(2));
+            Assert.assertSame(line.intern(2), line.get(2));
+            Assert.assertNull(reader.readNext());
+        }
+    }
+
+    @Test
+    public void testInternMoreStringsThanTheInitialCapacity() {
+        StringPool pool = new StringPool();
+        for (int i = 0; i < 1000; i++) {
+            byte[] bytes = ("scenario " + i).getBytes(StandardCharsets.UTF_8);
+            Assert.assertEquals("scenario " + i, pool.intern(bytes, 0, bytes.length));
+        }
+        byte[] bytes = "scenario 42".getBytes(StandardCharsets.UTF_8);
+        Assert.assertSame(pool.get(bytes, 0, bytes.length), pool.intern(bytes, 0, bytes.length));
+        Assert.assertEquals(StringPool.KEYWORDS.length + 1000, pool.size());
+    }
+
+    @Test
+    public void testLineLongerThanBuffer() throws IOException {
+        char[] chars = new char[3 * SimulationReader.DEFAULT_BUFFER_SIZE];
+        Arrays.fill(chars, 'a');
+        String name = new String(chars);
+        try (SimulationReader reader = getReader("\n\nREQUEST\t" + name + "\t1\nUSER\tEND\n")) {
+            SimulationLine line = reader.readNext();
+            Assert.assertEquals(name, line.get(1));
+            Assert.assertEquals("1", line.get(2));
+            Assert.assertTrue(reader.readNext().is(1, "END"));
+            Assert.assertNull(reader.readNext());
+        }
+    }
+
+    @Test
+    public void testProjectRequestColumns() throws IOException {
+        try (SimulationReader reader = getReader("REQUEST\t\tGet\t1\t2\tOK\t \t \n"
+                + "REQUEST\t\tGet\t1\t2\tKO\tstatus.find.is(200)\t \n" + "USER\tscn\tSTART\t1\t1\n")) {
+            reader.setSchema(SimulationParserV35.SCHEMA);
+            SimulationLine line = reader.readNext();
+            Assert.assertEquals(6, line.size());
+            Assert.assertTrue(line.is(5, "OK"));
+            // the message is only tokenized for a failed request
+            line = reader.readNext();
+            Assert.assertEquals(7, line.size());
+            Assert.assertTrue(line.is(5, "KO"));
+            Assert.assertEquals("status.find.is(200)", line.get(6));
+            Assert.assertEquals(5, reader.readNext().size());
+        }
+    }
+
+    @Test
+    public void testReadMappedFileWithSmallWindows() throws IOException {
+        File file = tempFolder.newFile("simulation.log");
+        Files.write(file.toPath(), "RUN\tsim\t3.5.0\nREQUEST\t\tGet\t1\t2\tOK\nUSER\tscn\tEND\t3\n".getBytes(
+                StandardCharsets.UTF_8));
+        try (SimulationReader reader = new SimulationReader(new MappedFileInputStream(file, 0, file.length(), 5))) {
+            Assert.assertTrue(reader.readNext().is(2, "3.5.0"));
+            Assert.assertEquals("Get", reader.readNext().get(2));
+            Assert.assertEquals("3", reader.readNext().get(3));
+            Assert.assertNull(reader.readNext());
+        }
+        // read a range of the file
+        try (MappedFileInputStream input = new MappedFileInputStream(file, 4, 7, 2)) {
+            Assert.assertEquals('s', input.read());
+            input.skip(1);
+            Assert.assertEquals(6, input.getPosition());
+            Assert.assertEquals('m', input.read());
+            Assert.assertEquals(-1, input.read());
+        }
+    }
+
+    @Test
+    public void testPeekAndUnread() throws IOException {
+        try (SimulationReader reader = getReader("RUN\tsim\nREQUEST\tGet\n")) {
+            Assert.assertArrayEquals("RUN".getBytes(StandardCharsets.UTF_8), reader.peek(3));
+            Assert.assertEquals(Arrays.asList("RUN", "sim"), reader.readNext().toList());
+            reader.unread();
+            Assert.assertEquals(Arrays.asList("RUN", "sim"), reader.readNext().toList());
+            Assert.assertEquals(Arrays.asList("REQUEST", "Get"), reader.readNext().toList());
+            Assert.assertEquals(0, reader.peek(4).length);
+            Assert.assertNull(reader.readNext());
+        }
+    }
+
+    protected SimulationReader getReader(String content) {
+        return new SimulationReader(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}
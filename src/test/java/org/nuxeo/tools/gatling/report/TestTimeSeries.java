@@ -0,0 +1,127 @@
+/*
+ * (C) Copyright 2026 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package org.nuxeo.tools.gatling.report;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestTimeSeries {
+
+    protected static final long ORIGIN = 1_000_000;
+
+    protected TimeSeries newTimeSeries() {
+        TimeSeries ret = new TimeSeries(1000, new double[] { 50, 99 });
+        ret.setOrigin(ORIGIN);
+        return ret;
+    }
+
+    @Test
+    public void testRequestsAreBucketedByStart() {
+        TimeSeries series = newTimeSeries();
+        series.add(ORIGIN, ORIGIN + 10, true);
+        series.add(ORIGIN + 999, ORIGIN + 1029, false);
+        // a gap of one second
+        series.add(ORIGIN + 2500, ORIGIN + 2600, true);
+        // before the origin
+        series.add(ORIGIN - 10, ORIGIN, true);
+        List<TimeSeries.Bucket> buckets = series.getBuckets();
+        Assert.assertEquals(3, buckets.size());
+        Assert.assertEquals(3, buckets.get(0).getCount());
+        Assert.assertEquals(1, buckets.get(0).getErrorCount());
+        Assert.assertEquals(10, buckets.get(0).getMin());
+        Assert.assertEquals(30, buckets.get(0).getMax());
+        Assert.assertEquals(50.0 / 3, buckets.get(0).getAverage(), 0.001);
+        Assert.assertEquals(0, buckets.get(1).getCount());
+        Assert.assertEquals(0, buckets.get(1).getPercentileValues()[0]);
+        Assert.assertEquals(ORIGIN + 2000, buckets.get(2).getStart());
+        Assert.assertEquals(100, buckets.get(2).getPercentileValues()[1]);
+        Assert.assertEquals("[0.0, 1.0, 2.0]", series.times());
+        Assert.assertEquals("[3.0, 0.0, 1.0]", series.throughputs());
+        Assert.assertEquals("[16.7, null, 100.0]", series.averages());
+        Assert.assertEquals("p99", series.getPercentileSeries().get(1).getName());
+    }
+
+    @Test
+    public void testActiveUsers() {
+        TimeSeries series = newTimeSeries();
+        series.addUser("scn1", ORIGIN + 100);
+        series.addUser("scn1", ORIGIN + 200);
+        // started and ended in the same bucket, still active in it
+        series.addUser("scn2", ORIGIN + 1100);
+        series.endUser("scn2", ORIGIN + 1900);
+        series.endUser("scn1", ORIGIN + 2100);
+        series.add(ORIGIN + 300, ORIGIN + 400, true);
+        List<TimeSeries.Bucket> buckets = series.getBuckets();
+        // the user events extend the buckets after the last request
+        Assert.assertEquals(3, buckets.size());
+        Assert.assertEquals(2, buckets.get(0).getActiveUsers());
+        Assert.assertEquals(3, buckets.get(1).getActiveUsers());
+        Assert.assertEquals(2, buckets.get(2).getActiveUsers());
+        Assert.assertEquals(0, buckets.get(2).getCount());
+        List<TimeSeries.Series> users = series.getUserSeries();
+        Assert.assertEquals("scn1", users.get(0).getName());
+        Assert.assertEquals("[2, 2, 2]", users.get(0).getValues());
+        Assert.assertEquals("[0, 1, 0]", users.get(1).getValues());
+        Assert.assertEquals("[0.0, 1.0, 2.0]", series.times());
+        Assert.assertEquals("[1.0, 0.0, 0.0]", series.throughputs());
+    }
+
+    @Test
+    public void testGrowAndMerge() {
+        TimeSeries expected = newTimeSeries();
+        TimeSeries first = newTimeSeries();
+        TimeSeries second = newTimeSeries();
+        for (int i = 0; i < 500; i++) {
+            long start = ORIGIN + i * 997L;
+            expected.add(start, start + i, i % 7 != 0);
+            (i < 300 ? first : second).add(start, start + i, i % 7 != 0);
+            if (i % 10 == 0) {
+                expected.addUser("scn", start);
+                (i < 300 ? first : second).addUser("scn", start);
+            } else if (i % 10 == 5) {
+                expected.endUser("scn", start);
+                (i < 300 ? first : second).endUser("scn", start);
+            }
+        }
+        // a user ending in the second chunk
+        expected.addUser("long", ORIGIN + 10);
+        first.addUser("long", ORIGIN + 10);
+        expected.endUser("long", ORIGIN + 1_000_000);
+        second.endUser("long", ORIGIN + 1_000_000);
+        first.merge(second);
+        Assert.assertEquals(expected.size(), first.size());
+        Assert.assertEquals(expected.toString(), first.toString());
+    }
+
+    @Test
+    public void testIgnoreTimestampsBeyondTheLastBucket() {
+        TimeSeries ret = newTimeSeries();
+        ret.add(ORIGIN + 10, ORIGIN + 20, true);
+        // a corrupted far future timestamp
+        ret.add(Long.MAX_VALUE / 2, Long.MAX_VALUE / 2 + 10, true);
+        ret.addUser("scn", Long.MAX_VALUE / 2);
+        Assert.assertEquals(1, ret.size());
+        Assert.assertEquals(TimeSeries.INITIAL_CAPACITY, ret.counts.length);
+        Assert.assertFalse(ret.hasUsers());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergeRequiresTheSameOrigin() {
+        TimeSeries other = new TimeSeries(1000, new double[] { 50 });
+        other.setOrigin(ORIGIN + 1);
+        newTimeSeries().merge(other);
+    }
+}
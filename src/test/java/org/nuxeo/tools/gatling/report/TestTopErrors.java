@@ -0,0 +1,85 @@
+/*
+ * (C) Copyright 2026 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package org.nuxeo.tools.gatling.report;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.yaml.snakeyaml.Yaml;
+
+public class TestTopErrors {
+
+    @Test
+    public void testKeepHeavyHitters() {
+        TopErrors errors = new TopErrors(16);
+        for (int i = 0; i < 1000; i++) {
+            errors.add("unique " + i);
+            if (i % 2 == 0) {
+                errors.add("timeout");
+            }
+            if (i % 5 == 0) {
+                errors.add("status 500");
+            }
+        }
+        Assert.assertEquals(1700, errors.getTotal());
+        List<TopErrors.ErrorCount> top = errors.getTop(2);
+        Assert.assertEquals("timeout", top.get(0).getMessage());
+        Assert.assertEquals("status 500", top.get(1).getMessage());
+        // counts are upper bounds
+        Assert.assertTrue(top.get(0).getCount() >= 500);
+        Assert.assertTrue(top.get(0).getCount() - top.get(0).getError() <= 500);
+        Assert.assertTrue(top.get(1).getCount() >= 200);
+        Assert.assertTrue(top.get(1).getCount() - top.get(1).getError() <= 200);
+    }
+
+    @Test
+    public void testReplaceTheLeastFrequent() {
+        TopErrors errors = new TopErrors(8);
+        for (int i = 0; i < 2000; i++) {
+            errors.add("message " + (i * 7919 % 37));
+            long min = errors.counters.values().stream().mapToLong(TopErrors.ErrorCount::getCount).min().getAsLong();
+            Assert.assertEquals(min, errors.heap[0].getCount());
+        }
+        Assert.assertEquals(8, errors.counters.size());
+        for (int i = 0; i < 8; i++) {
+            Assert.assertEquals(i, errors.heap[i].index);
+        }
+    }
+
+    @Test
+    public void testMerge() {
+        TopErrors first = new TopErrors();
+        TopErrors second = new TopErrors();
+        first.add("a");
+        first.add("b");
+        second.add("b");
+        second.add("c");
+        first.merge(second);
+        Assert.assertEquals(4, first.getTotal());
+        Assert.assertEquals("b", first.getTop().get(0).getMessage());
+        Assert.assertEquals(2, first.getTop().get(0).getCount());
+        Assert.assertEquals(3, first.getTop().size());
+    }
+
+    @Test
+    public void testYamlMessage() {
+        String message = "found \"500\"\tat C:\\path\nnext\u0001";
+        TopErrors.ErrorCount error = new TopErrors.ErrorCount(message, 1, 0);
+        Map<?, ?> parsed = new Yaml().load("message: " + error.getYamlMessage());
+        Assert.assertEquals(message, parsed.get("message"));
+        Assert.assertEquals("found \"500\" at C:\\path next\u0001 (1)", error.toString());
+    }
+}
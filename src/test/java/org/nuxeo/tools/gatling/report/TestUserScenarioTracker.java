@@ -0,0 +1,82 @@
+/*
+ * (C) Copyright 2026 Nuxeo SA (http://nuxeo.com/) and contributors.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser General Public License
+ * (LGPL) version 2.1 which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/lgpl-2.1.html
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ */
+package org.nuxeo.tools.gatling.report;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestUserScenarioTracker {
+
+    @Test
+    public void testTrackConcurrentUsers() {
+        UserScenarioTracker tracker = new UserScenarioTracker();
+        int users = 100_000;
+        int concurrency = 500;
+        for (int i = 0; i < users; i++) {
+            tracker.put(i, i % 2 == 0 ? "even" : "odd");
+            if (i >= concurrency) {
+                Assert.assertEquals((i - concurrency) % 2 == 0 ? "even" : "odd", tracker.remove(i - concurrency));
+            }
+            Assert.assertEquals(i % 2 == 0 ? "even" : "odd", tracker.get(i));
+        }
+        Assert.assertEquals(concurrency, tracker.size());
+        // the table is sized on the concurrent users
+        Assert.assertTrue(tracker.keys.length <= 4 * concurrency);
+        for (int i = users - concurrency; i < users; i++) {
+            Assert.assertNotNull("user " + i, tracker.get(i));
+        }
+        Assert.assertNull(tracker.get(0));
+        Assert.assertEquals(0, tracker.orphanCount);
+    }
+
+    @Test
+    public void testUnknownUserIsNotTracked() {
+        UserScenarioTracker tracker = new UserScenarioTracker();
+        tracker.put(SimulationParser.UNKNOWN_USER, "scenario");
+        Assert.assertEquals(0, tracker.size());
+        Assert.assertNull(tracker.get(SimulationParser.UNKNOWN_USER));
+        Assert.assertNull(tracker.remove(SimulationParser.UNKNOWN_USER));
+        Assert.assertEquals(0, tracker.orphanCount);
+    }
+
+    @Test
+    public void testOrphanIsDroppedOutOfChunk() {
+        UserScenarioTracker tracker = new UserScenarioTracker();
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertNull(tracker.remove(i));
+        }
+        Assert.assertEquals(0, tracker.orphanCount);
+        Assert.assertEquals(0, tracker.orphans.length);
+    }
+
+    @Test
+    public void testInheritUsersOfPreviousChunk() {
+        UserScenarioTracker first = new UserScenarioTracker();
+        first.put(1, "a");
+        first.put(2, "b");
+        // the next chunk ends user 1 and starts user 3
+        UserScenarioTracker second = new UserScenarioTracker().trackOrphans();
+        Assert.assertNull(second.remove(1));
+        Assert.assertEquals(1, second.orphanCount);
+        second.put(3, "c");
+
+        UserScenarioTracker third = new UserScenarioTracker();
+        third.inherit(first);
+        third.inherit(second);
+        Assert.assertEquals(2, third.size());
+        Assert.assertNull(third.get(1));
+        Assert.assertEquals("b", third.get(2));
+        Assert.assertEquals("c", third.get(3));
+    }
+}
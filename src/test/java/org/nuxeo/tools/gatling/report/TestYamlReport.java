@@ -32,7 +32,10 @@ import org.yaml.snakeyaml.Yaml;
 public class TestYamlReport {
 
     protected static final String SIM_LOG = "simulation-small.log";
+    protected static final String SIM_KO_LOG = "simulation-small-ko-v3.4.log";
+    protected static final String SIM_GROUP_LOG = "simulation-small-group-v3.2.log";
     protected static final String SIM_WITH_SPACES_LOG = "simulation-v3.2.log.gz";
+    protected static final String SIM_RAMP_LOG = "simulation-v2.3.log";
     protected static final List<String> TREND_LOGS = Arrays.asList(
             "simulation.log.1.gz", "simulation.log.2.gz", "simulation.log.3.gz");
 
@@ -104,6 +107,117 @@ public class TestYamlReport {
                 data.containsKey("requests"));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testYamlTopErrors() throws Exception {
+        List<SimulationContext> stats = Collections.singletonList(
+                ParserFactory.getParser(getResourceFile(SIM_KO_LOG)).parse());
+        Writer writer = new StringWriter();
+        new Report(stats).yamlReport(true).setWriter(writer).create();
+        Map<String, Object> data = new Yaml().load(writer.toString());
+
+        List<Map<String, Object>> errors = (List<Map<String, Object>>) data.get("errors");
+        Assert.assertEquals(4, errors.size());
+        Assert.assertEquals(5, errors.get(0).get("count"));
+        Assert.assertEquals("Request timeout to \"localhost\" after 60000 ms", errors.get(2).get("message"));
+
+        Map<String, Object> requests = (Map<String, Object>) data.get("requests");
+        Map<String, Object> search = (Map<String, Object>) requests.get("Search");
+        Assert.assertEquals(1, ((List<?>) search.get("errors")).size());
+
+        // a simulation without error has an empty list
+        stats = Collections.singletonList(ParserFactory.getParser(getResourceFile(SIM_LOG)).parse());
+        writer = new StringWriter();
+        new Report(stats).yamlReport(true).setWriter(writer).create();
+        data = new Yaml().load(writer.toString());
+        Assert.assertEquals(Collections.emptyList(), data.get("errors"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testYamlSummaryOnlyHasNoPercentile() throws Exception {
+        StatsConfig config = new StatsConfig().summaryOnly();
+        List<SimulationContext> stats = Collections.singletonList(
+                ParserFactory.getParser(getResourceFile(SIM_LOG)).setStatsConfig(config).parse());
+        Writer writer = new StringWriter();
+        new Report(stats).yamlReport(true).setWriter(writer).create();
+        Map<String, Object> data = new Yaml().load(writer.toString());
+        Assert.assertFalse(data.containsKey("p50"));
+        Assert.assertFalse(data.containsKey("p99"));
+        Assert.assertTrue(data.containsKey("max"));
+        Assert.assertEquals(Collections.emptyMap(), data.get("percentiles"));
+        Map<String, Object> requests = (Map<String, Object>) data.get("requests");
+        for (Object request : requests.values()) {
+            Assert.assertFalse(((Map<String, Object>) request).containsKey("p95"));
+            Assert.assertEquals(Collections.emptyMap(), ((Map<String, Object>) request).get("percentiles"));
+        }
+
+        // the percentiles are reported once computed
+        stats = Collections.singletonList(ParserFactory.getParser(getResourceFile(SIM_LOG)).parse());
+        writer = new StringWriter();
+        new Report(stats).yamlReport(true).setWriter(writer).create();
+        data = new Yaml().load(writer.toString());
+        Assert.assertTrue(data.containsKey("p95"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testYamlGroups() throws Exception {
+        List<SimulationContext> stats = Collections.singletonList(
+                ParserFactory.getParser(getResourceFile(SIM_GROUP_LOG)).parse());
+        Writer writer = new StringWriter();
+        new Report(stats).yamlReport(true).setWriter(writer).create();
+        Map<String, Object> data = new Yaml().load(writer.toString());
+
+        Map<String, Object> percentiles = (Map<String, Object>) data.get("percentiles");
+        Assert.assertEquals(Arrays.asList("p50", "p90", "p95", "p99"), new ArrayList<>(percentiles.keySet()));
+        Assert.assertEquals(data.get("p95"), percentiles.get("p95"));
+
+        Map<String, Object> groups = (Map<String, Object>) data.get("groups");
+        Assert.assertEquals(2, groups.size());
+        Map<String, Object> folder = (Map<String, Object>) groups.get("Browse,Folder");
+        Assert.assertEquals(6, folder.get("count"));
+        Assert.assertEquals(90.0, folder.get("cumulatedMs"));
+
+        // a simulation without group has an empty map
+        stats = Collections.singletonList(ParserFactory.getParser(getResourceFile(SIM_LOG)).parse());
+        writer = new StringWriter();
+        new Report(stats).yamlReport(true).setWriter(writer).create();
+        data = new Yaml().load(writer.toString());
+        Assert.assertEquals(Collections.emptyMap(), data.get("groups"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testYamlSaturation() throws Exception {
+        StatsConfig config = new StatsConfig().timeBucket(TimeSeries.DEFAULT_BUCKET_WIDTH);
+        List<SimulationContext> stats = Collections.singletonList(
+                ParserFactory.getParser(getResourceFile(SIM_RAMP_LOG)).setStatsConfig(config).parse());
+        Writer writer = new StringWriter();
+        new Report(stats).yamlReport(true).setWriter(writer).create();
+        Map<String, Object> data = new Yaml().load(writer.toString());
+
+        Map<String, Object> saturation = (Map<String, Object>) data.get("saturation");
+        SaturationCurve curve = stats.get(0).getSaturation();
+        List<Map<String, Object>> levels = (List<Map<String, Object>>) saturation.get("levels");
+        Assert.assertEquals(curve.getLevels().size(), levels.size());
+        Assert.assertEquals(curve.getLevels().get(0).getUsers(), (Double) levels.get(0).get("users"), 0.05);
+        Assert.assertTrue(saturation.containsKey("knee"));
+        // the throughput per user of this ramp increases, the fit has no coherency delay and no peak
+        Assert.assertTrue(curve.isFitted());
+        Assert.assertNull(saturation.get("peakUsers"));
+        Assert.assertEquals(curve.getSigma(), (Double) saturation.get("contention"), 0.0001);
+        Assert.assertTrue(levels.get(0).get("throughput") instanceof Double);
+
+        // a constant load has a single level
+        stats = Collections.singletonList(
+                ParserFactory.getParser(getResourceFile(SIM_GROUP_LOG)).setStatsConfig(config).parse());
+        writer = new StringWriter();
+        new Report(stats).yamlReport(true).setWriter(writer).create();
+        data = new Yaml().load(writer.toString());
+        Assert.assertEquals(Collections.emptyMap(), data.get("saturation"));
+    }
+
     @Test
     public void testYamlApdexIndentation() throws Exception {
         // Parse simulation